@@ -0,0 +1,150 @@
+package com.example.todolist.data;
+
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs EXPLAIN QUERY PLAN for every @Query in the DAOs against the app's database,
+ * with its real schema and migrations, and fails when one falls back to an
+ * unindexed SCAN or a TEMP B-TREE.
+ * Keep QUERIES in sync with the DAOs (Room parameters become '?').
+ */
+@RunWith(AndroidJUnit4.class)
+public class QueryPlanTest {
+
+    private static final PlannedQuery[] QUERIES = {
+            new PlannedQuery("TaskDao.getTasksByCategory(Sync)",
+                    "SELECT * FROM tasks WHERE categoryId = ? ORDER BY isDone ASC, timestampCreated DESC"),
+            new PlannedQuery("TaskDao.getAllTasks",
+                    "SELECT * FROM tasks ORDER BY isDone ASC, timestampCreated DESC"),
+            new PlannedQuery("TaskDao.getTasksByIds",
+                    "SELECT * FROM tasks WHERE id IN (?, ?)"),
+            new PlannedQuery("TaskDao.search",
+                    "SELECT tasks.* FROM tasks JOIN tasks_fts ON tasks.id = tasks_fts.rowid " +
+                            "WHERE tasks_fts MATCH ? " +
+                            "ORDER BY tasks.isDone ASC, length(tasks.name) ASC, tasks.timestampCreated DESC LIMIT ?",
+                    // Only the matched rows are sorted
+                    "USE TEMP B-TREE FOR ORDER BY"),
+            new PlannedQuery("TaskDao.getTaskCount",
+                    "SELECT COUNT(*) FROM tasks"),
+            new PlannedQuery("TaskDao.getCategoryCounts",
+                    "SELECT categoryId, COUNT(*) AS totalCount, SUM(isDone) AS doneCount FROM tasks GROUP BY categoryId"),
+            new PlannedQuery("TaskDao.getNextReminder",
+                    "SELECT * FROM tasks WHERE isDone = 0 AND reminderAt > ? ORDER BY reminderAt ASC LIMIT 1"),
+            new PlannedQuery("TaskDao.getRemindersBetween",
+                    "SELECT * FROM tasks WHERE isDone = 0 AND reminderAt BETWEEN ? AND ? ORDER BY reminderAt ASC"),
+            new PlannedQuery("TaskDao.getOpenTaskSummary",
+                    "SELECT g.categoryId AS categoryId, categories.name AS categoryName, g.openCount AS openCount, " +
+                            "g.earliestDue AS earliestDue, tasks.name AS earliestDueName " +
+                            "FROM (SELECT categoryId, COUNT(*) AS openCount, MIN(dueTimestamp) AS earliestDue, id AS earliestDueId " +
+                            "FROM tasks WHERE isDone = 0 GROUP BY categoryId) AS g " +
+                            "JOIN categories ON categories.id = g.categoryId " +
+                            "LEFT JOIN tasks ON tasks.id = g.earliestDueId AND g.earliestDue IS NOT NULL",
+                    // The materialized per-category groups, at most one row per category
+                    "SCAN g"),
+            new PlannedQuery("TaskDao.exportCursor",
+                    "SELECT categories.name AS categoryName, tasks.name AS name, tasks.isDone AS isDone, " +
+                            "tasks.timestampCreated AS timestampCreated, tasks.timestampDone AS timestampDone, " +
+                            "tasks.dueTimestamp AS dueTimestamp, tasks.reminderOffset AS reminderOffset " +
+                            "FROM tasks JOIN categories ON categories.id = tasks.categoryId ORDER BY tasks.id",
+                    // Export reads every task once, in rowid order
+                    "SCAN tasks"),
+            new PlannedQuery("TaskDao.setDone",
+                    "UPDATE tasks SET isDone = ?, timestampDone = ? WHERE id IN (?, ?) AND isDone != ?"),
+            new PlannedQuery("TaskDao.moveToCategory",
+                    "UPDATE tasks SET categoryId = ? WHERE id IN (?, ?) AND categoryId != ?"),
+            new PlannedQuery("TaskDao.deleteByIds",
+                    "DELETE FROM tasks WHERE id IN (?, ?)"),
+            new PlannedQuery("TaskDao.deleteOldCompletedTasks",
+                    "DELETE FROM tasks WHERE id IN (SELECT id FROM tasks WHERE isDone = 1 AND timestampDone < ? LIMIT ?)"),
+            new PlannedQuery("CategoryDao.getAllCategories",
+                    "SELECT * FROM categories",
+                    "SCAN categories"),
+            new PlannedQuery("CategoryDao.getCategoryByName",
+                    "SELECT * FROM categories WHERE name = ? LIMIT 1"),
+            new PlannedQuery("CategoryDao.getAllCategoryNames",
+                    "SELECT name FROM categories ORDER BY id",
+                    "SCAN categories"),
+            new PlannedQuery("TaskChangeDao.getChangesAfter",
+                    "SELECT * FROM task_changes WHERE seq > ? ORDER BY seq ASC LIMIT ?"),
+            new PlannedQuery("TaskChangeDao.getLatestSeq",
+                    "SELECT COALESCE(MAX(seq), 0) FROM task_changes"),
+            new PlannedQuery("TaskChangeDao.getOldestSeq",
+                    "SELECT COALESCE(MIN(seq), 0) FROM task_changes"),
+            new PlannedQuery("TaskChangeDao.compact",
+                    "DELETE FROM task_changes WHERE seq IN (SELECT seq FROM task_changes " +
+                            "WHERE seq <= (SELECT MAX(seq) FROM task_changes) - ? ORDER BY seq ASC LIMIT ?)"),
+            new PlannedQuery("NotificationTimeDao.getAll",
+                    "SELECT * FROM notification_times ORDER BY hour ASC, minute ASC"),
+            new PlannedQuery("NotificationTimeDao.getEnabled",
+                    "SELECT * FROM notification_times WHERE isEnabled = 1 ORDER BY hour ASC, minute ASC"),
+            new PlannedQuery("NotificationTimeDao.get",
+                    "SELECT * FROM notification_times WHERE hour = ? AND minute = ? LIMIT 1"),
+            new PlannedQuery("NotificationTimeDao.count",
+                    "SELECT COUNT(*) FROM notification_times"),
+    };
+
+    private static class PlannedQuery {
+        final String name;
+        final String sql;
+        final List<String> allowedSteps;
+
+        PlannedQuery(String name, String sql, String... allowedSteps) {
+            this.name = name;
+            this.sql = sql;
+            this.allowedSteps = Arrays.asList(allowedSteps);
+        }
+    }
+
+    @Test
+    public void daoQueriesUseIndices() {
+        Context context = ApplicationProvider.getApplicationContext();
+        SupportSQLiteDatabase db = AppDatabase.getDatabase(context).getOpenHelper().getWritableDatabase();
+        List<String> violations = findViolations(db);
+        assertTrue("Unindexed queries:\n" + String.join("\n", violations), violations.isEmpty());
+    }
+
+    private static List<String> findViolations(SupportSQLiteDatabase db) {
+        List<String> violations = new ArrayList<>();
+        for (PlannedQuery query : QUERIES) {
+            try (Cursor cursor = db.query("EXPLAIN QUERY PLAN " + query.sql)) {
+                int detailIndex = cursor.getColumnIndexOrThrow("detail");
+                while (cursor.moveToNext()) {
+                    // Older SQLite versions print "SCAN TABLE x" instead of "SCAN x"
+                    String step = cursor.getString(detailIndex).replaceFirst("^(SCAN|SEARCH) TABLE ", "$1 ");
+                    if (isViolation(step) && !query.allowedSteps.contains(step)) {
+                        violations.add(query.name + ": " + step);
+                    }
+                }
+            }
+        }
+        return violations;
+    }
+
+    private static boolean isViolation(String step) {
+        if (step.contains("TEMP B-TREE")) {
+            return true;
+        }
+        if (step.startsWith("SCAN ")) {
+            return !step.contains("USING INDEX")
+                    && !step.contains("USING COVERING INDEX")
+                    && !step.contains("VIRTUAL TABLE")
+                    && !step.startsWith("SCAN (") // Subquery co-routine, not a table
+                    && !step.startsWith("SCAN SUBQUERY");
+        }
+        return false;
+    }
+}
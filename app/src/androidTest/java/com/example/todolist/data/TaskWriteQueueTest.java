@@ -0,0 +1,78 @@
+package com.example.todolist.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write coalescing in TaskWriteQueue against an in-memory database, so the
+ * batches really run on the writer lane.
+ */
+@RunWith(AndroidJUnit4.class)
+public class TaskWriteQueueTest {
+    private static final long TIMEOUT_S = 5;
+
+    private AppDatabase mDatabase;
+    private TaskWriteQueue mQueue;
+    private int mCategoryId;
+
+    @Before
+    public void openDatabase() {
+        Context context = ApplicationProvider.getApplicationContext();
+        mDatabase = Room.inMemoryDatabaseBuilder(context, AppDatabase.class).build();
+        mQueue = new TaskWriteQueue(mDatabase);
+        mCategoryId = (int) mDatabase.categoryDao().insert(new Category("Write queue test"));
+    }
+
+    @After
+    public void closeDatabase() {
+        mDatabase.close();
+    }
+
+    // Deleted inside the batch window: nothing is written and the insert is cancelled,
+    // so TaskRepository.insert does not cache a task without an id
+    @Test
+    public void insertThenDeleteInOneWindowCancelsTheInsert() throws Exception {
+        Task task = new Task("Never written", mCategoryId, System.currentTimeMillis());
+        CompletableFuture<Void> insert = mQueue.insert(task);
+        CompletableFuture<Void> update = mQueue.update(task);
+        CompletableFuture<Void> delete = mQueue.delete(task);
+
+        assertTrue(insert.isCancelled());
+        update.get(TIMEOUT_S, TimeUnit.SECONDS);
+        delete.get(TIMEOUT_S, TimeUnit.SECONDS);
+        assertFalse(update.isCompletedExceptionally());
+        assertFalse(delete.isCompletedExceptionally());
+
+        // Waits for anything still queued on the writer lane
+        mQueue.flush();
+        DatabaseExecutors.writer().submit(() -> { }).get(TIMEOUT_S, TimeUnit.SECONDS);
+        assertEquals(0, task.id);
+        assertEquals(0, mDatabase.taskDao().getTaskCount());
+    }
+
+    @Test
+    public void insertOutsideTheWindowAssignsTheId() throws Exception {
+        Task task = new Task("Written", mCategoryId, System.currentTimeMillis());
+        CompletableFuture<Void> insert = mQueue.insert(task);
+        mQueue.flush();
+        insert.get(TIMEOUT_S, TimeUnit.SECONDS);
+
+        assertTrue(task.id > 0);
+        assertEquals(1, mDatabase.taskDao().getTaskCount());
+    }
+}
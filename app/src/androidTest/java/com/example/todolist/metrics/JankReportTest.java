@@ -0,0 +1,107 @@
+package com.example.todolist.metrics;
+
+import static androidx.test.espresso.Espresso.onView;
+import static androidx.test.espresso.action.ViewActions.swipeDown;
+import static androidx.test.espresso.action.ViewActions.swipeUp;
+import static androidx.test.espresso.matcher.ViewMatchers.withId;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import android.content.Context;
+import android.os.Build;
+
+import androidx.test.core.app.ActivityScenario;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.todolist.MainActivity;
+import com.example.todolist.R;
+import com.example.todolist.data.AppDatabase;
+import com.example.todolist.data.Category;
+import com.example.todolist.data.Task;
+import com.example.todolist.settings.SettingsStore;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Scrolls the task list of a debug build and checks that JankTracker counted the
+ * frames under the task screen's UI states, and that StrictMode saw no main
+ * thread disk access from app code.
+ */
+@RunWith(AndroidJUnit4.class)
+public class JankReportTest {
+    private static final int TASK_COUNT = 300;
+    private static final long REPORT_TIMEOUT_MS = 5000;
+
+    private AppDatabase mDatabase;
+    private Category mCategory;
+
+    // An expanded category long enough to scroll
+    @Before
+    public void seedTasks() {
+        Context context = ApplicationProvider.getApplicationContext();
+        mDatabase = AppDatabase.getDatabase(context);
+        mCategory = new Category("Jank report test");
+        mCategory.id = (int) mDatabase.categoryDao().insert(mCategory);
+        List<Task> tasks = new ArrayList<>(TASK_COUNT);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < TASK_COUNT; i++) {
+            tasks.add(new Task("Task " + i, mCategory.id, now - i));
+        }
+        mDatabase.taskDao().insertAll(tasks);
+        SettingsStore.getInstance(context).setCategoryExpanded(mCategory.id, true);
+    }
+
+    // Cascades to the tasks
+    @After
+    public void removeTasks() {
+        mDatabase.categoryDao().delete(mCategory);
+        SettingsStore.getInstance(ApplicationProvider.getApplicationContext())
+                .setCategoryExpanded(mCategory.id, false);
+    }
+
+    @Test
+    public void scrollingTheTaskListIsReported() throws InterruptedException {
+        assertTrue("Debug builds install JankTracker", PerformanceMonitor.isInstalled());
+        try (ActivityScenario<MainActivity> ignored = ActivityScenario.launch(MainActivity.class)) {
+            JankTracker.reset();
+            for (int i = 0; i < 3; i++) {
+                onView(withId(R.id.recycler_view_tasks)).perform(swipeUp());
+            }
+            onView(withId(R.id.recycler_view_tasks)).perform(swipeDown());
+
+            // JankStats hands frames over on its own thread, shortly after they are drawn
+            long deadline = System.currentTimeMillis() + REPORT_TIMEOUT_MS;
+            String report = PerformanceMonitor.report();
+            while (!report.contains(JankTracker.STATE_SCROLL + "=") && System.currentTimeMillis() < deadline) {
+                Thread.sleep(100);
+                report = PerformanceMonitor.report();
+            }
+
+            assertTrue(report, JankTracker.getFrameCount() > 0);
+            assertTrue(report, report.contains(JankTracker.STATE_FRAGMENT + "=Tasks"));
+            assertTrue(report, report.contains(JankTracker.STATE_SCROLL + "="));
+            assertTrue(report, report.contains("Task cache:"));
+        }
+    }
+
+    // Startup and the task list must not read or write files on the main thread
+    @Test
+    public void mainThreadStaysOffTheDisk() {
+        assumeTrue("StrictMode listeners need API 28", Build.VERSION.SDK_INT >= Build.VERSION_CODES.P);
+        try (ActivityScenario<MainActivity> ignored = ActivityScenario.launch(MainActivity.class)) {
+            onView(withId(R.id.recycler_view_tasks)).perform(swipeUp());
+            InstrumentationRegistry.getInstrumentation().waitForIdleSync();
+
+            List<String> violations = JankTracker.getDiskViolations();
+            assertTrue(String.join("\n", violations), violations.isEmpty());
+        }
+    }
+}
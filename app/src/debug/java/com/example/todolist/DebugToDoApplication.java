@@ -0,0 +1,15 @@
+package com.example.todolist;
+
+import com.example.todolist.metrics.JankTracker;
+
+// Debug builds only, see src/debug/AndroidManifest.xml
+public class DebugToDoApplication extends ToDoApplication {
+
+    @Override
+    public void onCreate() {
+        // StrictMode and jank reports; main thread disk access shows up in logcat.
+        // Installed first so it also covers the startup work in ToDoApplication.
+        JankTracker.install(this);
+        super.onCreate();
+    }
+}
@@ -0,0 +1,328 @@
+package com.example.todolist.metrics;
+
+import android.app.Activity;
+import android.app.Application;
+import android.content.Context;
+import android.os.Build;
+import android.os.Bundle;
+import android.os.StrictMode;
+import android.os.strictmode.DiskReadViolation;
+import android.os.strictmode.DiskWriteViolation;
+import android.os.strictmode.Violation;
+import android.util.Log;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RequiresApi;
+import androidx.metrics.performance.FrameData;
+import androidx.metrics.performance.JankStats;
+import androidx.metrics.performance.PerformanceMetricsState;
+import androidx.metrics.performance.StateInfo;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Debug-only StrictMode policies plus per-frame JankStats, installed as the
+ * PerformanceMonitor tracker. Screens describe what is on screen through UI states
+ * (fragment, list size bucket, scroll, bind) and every frame is counted under the
+ * combination of states it was drawn with. The summary is logged and written to
+ * REPORT_FILE whenever an activity stops, and can be read in-process by
+ * instrumented tests through PerformanceMonitor.report().
+ */
+public final class JankTracker implements PerformanceMonitor.Tracker {
+    private static final String TAG = "JankTracker";
+
+    public static final String REPORT_FILE = "jank_report.txt";
+
+    // UI state keys
+    public static final String STATE_FRAGMENT = "fragment";
+    public static final String STATE_LIST_SIZE = "listSize";
+    public static final String STATE_SCROLL = "scroll";
+    public static final String STATE_BIND = "bind";
+
+    private static volatile boolean sInstalled = false;
+
+    // Only touched on the main thread
+    private static final Map<Activity, JankStats> sJankStats = new WeakHashMap<>();
+
+    // Guarded by JankTracker.class; frames arrive on the JankStats thread, violations
+    // on the main thread
+    private static final Map<String, Bucket> sBuckets = new HashMap<>();
+    private static long sFrames;
+    private static long sJankyFrames;
+    private static final List<String> sDiskViolations = new ArrayList<>();
+
+    // Violations are only recorded when a frame of this package is on the stack
+    private static final String APP_PACKAGE = "com.example.todolist.";
+
+    private static final ExecutorService sReportExecutor = Executors.newSingleThreadExecutor();
+
+    private JankTracker() {
+    }
+
+    // Call once from Application.onCreate in debug builds
+    public static void install(Application application) {
+        if (sInstalled) return;
+        sInstalled = true;
+        PerformanceMonitor.install(new JankTracker());
+
+        StrictMode.ThreadPolicy.Builder threadPolicy = new StrictMode.ThreadPolicy.Builder()
+                .detectDiskReads()
+                .detectDiskWrites()
+                .detectCustomSlowCalls()
+                .detectUnbufferedIo()
+                .penaltyLog();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
+            // Runs right on the violating thread, so tests see violations once it is idle
+            threadPolicy.penaltyListener(Runnable::run, JankTracker::onThreadViolation);
+        }
+        StrictMode.setThreadPolicy(threadPolicy.build());
+        StrictMode.setVmPolicy(new StrictMode.VmPolicy.Builder()
+                .detectLeakedSqlLiteObjects()
+                .detectLeakedClosableObjects()
+                .detectLeakedRegistrationObjects()
+                .detectActivityLeaks()
+                .penaltyLog()
+                .build());
+
+        application.registerActivityLifecycleCallbacks(new Application.ActivityLifecycleCallbacks() {
+            @Override
+            public void onActivityStarted(@NonNull Activity activity) {
+                JankStats jankStats = sJankStats.get(activity);
+                if (jankStats == null) {
+                    jankStats = JankStats.createAndTrack(activity.getWindow(), JankTracker::onFrame);
+                    sJankStats.put(activity, jankStats);
+                }
+                jankStats.setTrackingEnabled(true);
+            }
+
+            @Override
+            public void onActivityStopped(@NonNull Activity activity) {
+                JankStats jankStats = sJankStats.get(activity);
+                if (jankStats != null) {
+                    jankStats.setTrackingEnabled(false);
+                }
+                dump(activity.getApplicationContext());
+            }
+
+            @Override
+            public void onActivityDestroyed(@NonNull Activity activity) {
+                sJankStats.remove(activity);
+            }
+
+            @Override public void onActivityCreated(@NonNull Activity activity, @Nullable Bundle state) {}
+            @Override public void onActivityResumed(@NonNull Activity activity) {}
+            @Override public void onActivityPaused(@NonNull Activity activity) {}
+            @Override public void onActivitySaveInstanceState(@NonNull Activity activity, @NonNull Bundle state) {}
+        });
+    }
+
+    // --- UI state ---
+
+    @Override
+    public void setFragment(View view, String name) {
+        withState(view, state -> state.putState(STATE_FRAGMENT, name));
+    }
+
+    @Override
+    public void setListSize(View view, int size) {
+        withState(view, state -> state.putState(STATE_LIST_SIZE, sizeBucket(size)));
+    }
+
+    // Scroll state while the list moves, bind on frames that attach rows; both are
+    // dropped when the list leaves the window
+    @Override
+    public void trackList(RecyclerView list) {
+        list.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrollStateChanged(@NonNull RecyclerView recyclerView, int newState) {
+                withState(recyclerView, state -> {
+                    if (newState == RecyclerView.SCROLL_STATE_DRAGGING) {
+                        state.putState(STATE_SCROLL, "drag");
+                    } else if (newState == RecyclerView.SCROLL_STATE_SETTLING) {
+                        state.putState(STATE_SCROLL, "fling");
+                    } else {
+                        state.removeState(STATE_SCROLL);
+                    }
+                });
+            }
+        });
+        list.addOnChildAttachStateChangeListener(new RecyclerView.OnChildAttachStateChangeListener() {
+            @Override
+            public void onChildViewAttachedToWindow(@NonNull View view) {
+                withState(list, state -> state.putSingleFrameState(STATE_BIND, "rows"));
+            }
+
+            @Override
+            public void onChildViewDetachedFromWindow(@NonNull View view) {
+            }
+        });
+        list.addOnAttachStateChangeListener(new View.OnAttachStateChangeListener() {
+            @Override
+            public void onViewAttachedToWindow(@NonNull View view) {
+            }
+
+            @Override
+            public void onViewDetachedFromWindow(@NonNull View view) {
+                withState(view, state -> {
+                    state.removeState(STATE_LIST_SIZE);
+                    state.removeState(STATE_SCROLL);
+                });
+            }
+        });
+    }
+
+    // The state holder belongs to the window, so the view has to be attached to reach it
+    private static void withState(View view, Consumer<PerformanceMetricsState> update) {
+        if (!view.isAttachedToWindow()) {
+            view.post(() -> withState(view, update));
+            return;
+        }
+        PerformanceMetricsState state = PerformanceMetricsState.getHolderForHierarchy(view).getState();
+        if (state != null) {
+            update.accept(state);
+        }
+    }
+
+    // Powers of ten, so buckets stay few: "0", "1-9", "10-99", ...
+    private static String sizeBucket(int size) {
+        if (size <= 0) return "0";
+        int low = 1;
+        while (low <= size / 10) {
+            low *= 10;
+        }
+        return low + "-" + (low * 10 - 1);
+    }
+
+    // --- Frames ---
+
+    private static void onFrame(FrameData frame) {
+        // FrameData is reused by JankStats, so copy what is needed right away
+        List<StateInfo> states = new ArrayList<>(frame.getStates());
+        states.sort((a, b) -> a.getKey().compareTo(b.getKey()));
+        StringBuilder key = new StringBuilder();
+        for (StateInfo info : states) {
+            if (key.length() > 0) key.append(' ');
+            key.append(info.getKey()).append('=').append(info.getValue());
+        }
+        record(key.length() == 0 ? "(no state)" : key.toString(), frame.isJank(), frame.getFrameDurationUiNanos());
+    }
+
+    private static synchronized void record(String key, boolean jank, long durationNanos) {
+        Bucket bucket = sBuckets.get(key);
+        if (bucket == null) {
+            bucket = new Bucket(key);
+            sBuckets.put(key, bucket);
+        }
+        bucket.frames++;
+        bucket.maxNanos = Math.max(bucket.maxNanos, durationNanos);
+        sFrames++;
+        if (jank) {
+            bucket.jankyFrames++;
+            sJankyFrames++;
+        }
+    }
+
+    // --- StrictMode ---
+
+    // Disk access on the main thread with app code on the stack; framework and
+    // library violations are only logged
+    @RequiresApi(Build.VERSION_CODES.P)
+    private static void onThreadViolation(Violation violation) {
+        if (!(violation instanceof DiskReadViolation) && !(violation instanceof DiskWriteViolation)) {
+            return;
+        }
+        for (StackTraceElement frame : violation.getStackTrace()) {
+            String className = frame.getClassName();
+            if (className.startsWith(APP_PACKAGE) && !className.equals(JankTracker.class.getName())) {
+                recordViolation(violation.getClass().getSimpleName() + " at " + frame);
+                return;
+            }
+        }
+    }
+
+    private static synchronized void recordViolation(String violation) {
+        sDiskViolations.add(violation);
+    }
+
+    // Since install, not cleared by reset(); always empty below API 28
+    public static synchronized List<String> getDiskViolations() {
+        return new ArrayList<>(sDiskViolations);
+    }
+
+    // --- Report ---
+
+    public static synchronized long getFrameCount() { return sFrames; }
+    public static synchronized long getJankyFrameCount() { return sJankyFrames; }
+
+    public static synchronized void reset() {
+        sBuckets.clear();
+        sFrames = 0;
+        sJankyFrames = 0;
+    }
+
+    @Override
+    public String report() {
+        return frameReport();
+    }
+
+    // Buckets with the most janky frames first
+    private static synchronized String frameReport() {
+        List<Bucket> buckets = new ArrayList<>(sBuckets.values());
+        buckets.sort((a, b) -> Long.compare(b.jankyFrames, a.jankyFrames));
+        StringBuilder sb = new StringBuilder(String.format(Locale.US,
+                "Jank report: %d frames, %d janky (%.1f%%)", sFrames, sJankyFrames, percent(sJankyFrames, sFrames)));
+        for (Bucket bucket : buckets) {
+            sb.append(String.format(Locale.US, "%n  %s: %d frames, %d janky (%.1f%%), worst %.1f ms",
+                    bucket.key, bucket.frames, bucket.jankyFrames, percent(bucket.jankyFrames, bucket.frames),
+                    bucket.maxNanos / 1_000_000.0));
+        }
+        sb.append(String.format(Locale.US, "%nMain thread disk access from app code: %d", sDiskViolations.size()));
+        for (String violation : sDiskViolations) {
+            sb.append(String.format(Locale.US, "%n  %s", violation));
+        }
+        return sb.toString();
+    }
+
+    private static void dump(Context context) {
+        String report = PerformanceMonitor.report();
+        Log.i(TAG, report);
+        sReportExecutor.execute(() -> {
+            try (Writer out = new FileWriter(new File(context.getFilesDir(), REPORT_FILE))) {
+                out.write(report);
+                out.write('\n');
+            } catch (IOException e) {
+                Log.w(TAG, "Could not write jank report", e);
+            }
+        });
+    }
+
+    private static double percent(long part, long total) {
+        return total == 0 ? 0 : part * 100.0 / total;
+    }
+
+    private static class Bucket {
+        final String key;
+        long frames;
+        long jankyFrames;
+        long maxNanos;
+
+        Bucket(String key) {
+            this.key = key;
+        }
+    }
+}
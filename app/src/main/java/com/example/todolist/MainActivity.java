@@ -10,6 +10,8 @@ import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
 import androidx.fragment.app.Fragment;
 
+import com.example.todolist.metrics.StartupMetrics;
+import com.example.todolist.retention.RetentionScheduler;
 import com.example.todolist.ui.OnAddActionListener;
 import com.example.todolist.ui.SettingsFragment;
 import com.example.todolist.ui.TasksFragment;
@@ -21,6 +23,7 @@ public class MainActivity extends AppCompatActivity {
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
+        StartupMetrics.watchFirstFrame(this);
 
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU) {
             if (ContextCompat.checkSelfPermission(this, Manifest.permission.POST_NOTIFICATIONS) != PackageManager.PERMISSION_GRANTED) {
@@ -28,6 +31,9 @@ public class MainActivity extends AppCompatActivity {
             }
         }
 
+        // Periodic purge of old completed tasks; KEEP leaves an existing schedule alone
+        RetentionScheduler.schedule(this);
+
         BottomNavigationView navView = findViewById(R.id.nav_view);
         navView.setOnItemSelectedListener(item -> {
             int itemId = item.getItemId();
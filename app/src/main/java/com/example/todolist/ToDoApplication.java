@@ -0,0 +1,27 @@
+package com.example.todolist;
+
+import android.app.Application;
+
+import androidx.appcompat.app.AppCompatDelegate;
+
+import com.example.todolist.settings.SettingsStore;
+
+public class ToDoApplication extends Application {
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        // Starts the settings preload as early as possible. The stored night mode is
+        // applied the moment it is read, later changes through the LiveData.
+        SettingsStore settings = SettingsStore.getInstance(this);
+        settings.whenNightModeLoaded(ToDoApplication::applyNightMode);
+        settings.getNightMode().observeForever(ToDoApplication::applyNightMode);
+    }
+
+    // Recreates started activities if the mode actually changes
+    private static void applyNightMode(int mode) {
+        if (mode != AppCompatDelegate.getDefaultNightMode()) {
+            AppCompatDelegate.setDefaultNightMode(mode);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.todolist.backup;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+
+public enum BackupFormat {
+    JSON("application/json"),
+    CSV("text/csv");
+
+    public final String mimeType;
+
+    BackupFormat(String mimeType) {
+        this.mimeType = mimeType;
+    }
+
+    // Peeks at the first non-blank byte: JSON exports always start with '{'
+    public static BackupFormat detect(BufferedInputStream in) throws IOException {
+        in.mark(64);
+        try {
+            int b;
+            for (int i = 0; i < 64 && (b = in.read()) != -1; i++) {
+                if (!Character.isWhitespace(b) && b != 0xEF && b != 0xBB && b != 0xBF) { // Skip a UTF-8 BOM
+                    return b == '{' ? JSON : CSV;
+                }
+            }
+            return CSV;
+        } finally {
+            in.reset();
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package com.example.todolist.backup;
+
+public interface ProgressListener {
+    // percent is -1 when the total size is unknown
+    void onProgress(long rows, int percent);
+}
@@ -0,0 +1,132 @@
+package com.example.todolist.backup;
+
+import android.database.Cursor;
+import android.util.JsonWriter;
+
+import com.example.todolist.data.AppDatabase;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Streams all categories and tasks to a JSON or CSV file. Tasks are read through a
+ * Room cursor and written row by row, so memory use does not grow with the table.
+ */
+public class TaskExporter {
+    static final int FORMAT_VERSION = 1;
+
+    // JSON field names, also the CSV header
+    static final String CATEGORY = "category";
+    static final String NAME = "name";
+    static final String IS_DONE = "isDone";
+    static final String TIMESTAMP_CREATED = "timestampCreated";
+    static final String TIMESTAMP_DONE = "timestampDone";
+    static final String DUE_TIMESTAMP = "dueTimestamp";
+    static final String REMINDER_OFFSET = "reminderOffset";
+
+    private static final int PROGRESS_EVERY_ROWS = 1000;
+
+    private final AppDatabase mDatabase;
+
+    public TaskExporter(AppDatabase database) {
+        mDatabase = database;
+    }
+
+    // Blocking; returns the number of exported tasks
+    public long export(OutputStream out, BackupFormat format, ProgressListener listener) throws IOException {
+        long total = mDatabase.taskDao().getTaskCount();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        long rows;
+        try (Cursor cursor = mDatabase.taskDao().exportCursor()) {
+            rows = format == BackupFormat.JSON
+                    ? writeJson(writer, cursor, total, listener)
+                    : writeCsv(writer, cursor, total, listener);
+        }
+        writer.flush();
+        listener.onProgress(rows, 100);
+        return rows;
+    }
+
+    private long writeJson(Writer out, Cursor cursor, long total, ProgressListener listener) throws IOException {
+        JsonWriter json = new JsonWriter(out);
+        json.beginObject();
+        json.name("version").value(FORMAT_VERSION);
+
+        // Listed separately so empty categories survive a round trip
+        json.name("categories").beginArray();
+        for (String name : mDatabase.categoryDao().getAllCategoryNames()) {
+            json.value(name);
+        }
+        json.endArray();
+
+        Columns c = new Columns(cursor);
+        long rows = 0;
+        json.name("tasks").beginArray();
+        while (cursor.moveToNext()) {
+            json.beginObject();
+            json.name(CATEGORY).value(cursor.getString(c.category));
+            json.name(NAME).value(cursor.getString(c.name));
+            json.name(IS_DONE).value(cursor.getInt(c.isDone) != 0);
+            json.name(TIMESTAMP_CREATED).value(cursor.getLong(c.timestampCreated));
+            json.name(TIMESTAMP_DONE).value(cursor.getLong(c.timestampDone));
+            if (!cursor.isNull(c.dueTimestamp)) {
+                json.name(DUE_TIMESTAMP).value(cursor.getLong(c.dueTimestamp));
+                json.name(REMINDER_OFFSET).value(cursor.getLong(c.reminderOffset));
+            }
+            json.endObject();
+            reportProgress(++rows, total, listener);
+        }
+        json.endArray();
+        json.endObject();
+        json.flush();
+        return rows;
+    }
+
+    private long writeCsv(Writer out, Cursor cursor, long total, ProgressListener listener) throws IOException {
+        Csv.writeRow(out, CATEGORY, NAME, IS_DONE, TIMESTAMP_CREATED, TIMESTAMP_DONE, DUE_TIMESTAMP, REMINDER_OFFSET);
+        Columns c = new Columns(cursor);
+        long rows = 0;
+        while (cursor.moveToNext()) {
+            Csv.writeRow(out,
+                    cursor.getString(c.category),
+                    cursor.getString(c.name),
+                    cursor.getInt(c.isDone) != 0 ? "1" : "0",
+                    Long.toString(cursor.getLong(c.timestampCreated)),
+                    Long.toString(cursor.getLong(c.timestampDone)),
+                    cursor.isNull(c.dueTimestamp) ? "" : Long.toString(cursor.getLong(c.dueTimestamp)),
+                    Long.toString(cursor.getLong(c.reminderOffset)));
+            reportProgress(++rows, total, listener);
+        }
+        return rows;
+    }
+
+    private static void reportProgress(long rows, long total, ProgressListener listener) {
+        if (rows % PROGRESS_EVERY_ROWS == 0) {
+            listener.onProgress(rows, total > 0 ? (int) Math.min(99, rows * 100 / total) : -1);
+        }
+    }
+
+    private static class Columns {
+        final int category;
+        final int name;
+        final int isDone;
+        final int timestampCreated;
+        final int timestampDone;
+        final int dueTimestamp;
+        final int reminderOffset;
+
+        Columns(Cursor cursor) {
+            category = cursor.getColumnIndexOrThrow("categoryName");
+            name = cursor.getColumnIndexOrThrow(NAME);
+            isDone = cursor.getColumnIndexOrThrow(IS_DONE);
+            timestampCreated = cursor.getColumnIndexOrThrow(TIMESTAMP_CREATED);
+            timestampDone = cursor.getColumnIndexOrThrow(TIMESTAMP_DONE);
+            dueTimestamp = cursor.getColumnIndexOrThrow(DUE_TIMESTAMP);
+            reminderOffset = cursor.getColumnIndexOrThrow(REMINDER_OFFSET);
+        }
+    }
+}
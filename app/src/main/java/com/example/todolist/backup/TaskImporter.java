@@ -0,0 +1,256 @@
+package com.example.todolist.backup;
+
+import android.util.JsonReader;
+import android.util.JsonToken;
+
+import com.example.todolist.data.AppDatabase;
+import com.example.todolist.data.Category;
+import com.example.todolist.data.CategoryDao;
+import com.example.todolist.data.DatabaseExecutors;
+import com.example.todolist.data.Task;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Reads a file written by TaskExporter (JSON or CSV, detected from the content) and
+ * appends its tasks. Rows are parsed one at a time and inserted in BATCH_SIZE
+ * transactions on the writer lane, so only one batch is ever held in memory.
+ * Use one instance per import.
+ */
+public class TaskImporter {
+    private static final int BATCH_SIZE = 1000;
+
+    // For rows without a category
+    private static final String DEFAULT_CATEGORY = "Imported";
+
+    private final AppDatabase mDatabase;
+
+    // Only touched on the writer lane
+    private final Map<String, Integer> mCategoryIds = new HashMap<>();
+
+    private final List<Task> mBatch = new ArrayList<>(BATCH_SIZE);
+    private final List<String> mBatchCategories = new ArrayList<>(BATCH_SIZE);
+    private long mRows;
+
+    public TaskImporter(AppDatabase database) {
+        mDatabase = database;
+    }
+
+    // Blocking; totalBytes is only used for progress and may be -1
+    public long importFrom(InputStream in, long totalBytes, ProgressListener listener) throws IOException {
+        CountingInputStream counting = new CountingInputStream(in);
+        BufferedInputStream buffered = new BufferedInputStream(counting);
+        BackupFormat format = BackupFormat.detect(buffered);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(buffered, StandardCharsets.UTF_8));
+
+        Runnable onBatch = () -> listener.onProgress(mRows,
+                totalBytes > 0 ? (int) Math.min(99, counting.count * 100 / totalBytes) : -1);
+        if (format == BackupFormat.JSON) {
+            readJson(new JsonReader(reader), onBatch);
+        } else {
+            readCsv(reader, onBatch);
+        }
+        flush();
+        listener.onProgress(mRows, 100);
+        return mRows;
+    }
+
+    private void readJson(JsonReader json, Runnable onBatch) throws IOException {
+        json.beginObject();
+        while (json.hasNext()) {
+            String name = json.nextName();
+            if (name.equals("categories")) {
+                List<String> categories = new ArrayList<>();
+                json.beginArray();
+                while (json.hasNext()) {
+                    categories.add(json.nextString());
+                }
+                json.endArray();
+                onWriter(() -> {
+                    for (String category : categories) {
+                        resolveCategory(category);
+                    }
+                });
+            } else if (name.equals("tasks")) {
+                json.beginArray();
+                while (json.hasNext()) {
+                    readJsonTask(json);
+                    if (mBatch.size() >= BATCH_SIZE) {
+                        flush();
+                        onBatch.run();
+                    }
+                }
+                json.endArray();
+            } else {
+                json.skipValue();
+            }
+        }
+        json.endObject();
+    }
+
+    private void readJsonTask(JsonReader json) throws IOException {
+        String category = null;
+        Task task = new Task(null, 0, 0);
+        Long due = null;
+        long reminderOffset = 0;
+
+        json.beginObject();
+        while (json.hasNext()) {
+            String field = json.nextName();
+            if (json.peek() == JsonToken.NULL) {
+                json.skipValue();
+                continue;
+            }
+            switch (field) {
+                case TaskExporter.CATEGORY: category = json.nextString(); break;
+                case TaskExporter.NAME: task.name = json.nextString(); break;
+                case TaskExporter.IS_DONE: task.isDone = json.nextBoolean(); break;
+                case TaskExporter.TIMESTAMP_CREATED: task.timestampCreated = json.nextLong(); break;
+                case TaskExporter.TIMESTAMP_DONE: task.timestampDone = json.nextLong(); break;
+                case TaskExporter.DUE_TIMESTAMP: due = json.nextLong(); break;
+                case TaskExporter.REMINDER_OFFSET: reminderOffset = json.nextLong(); break;
+                default: json.skipValue(); break;
+            }
+        }
+        json.endObject();
+        task.setDue(due, reminderOffset);
+        add(task, category);
+    }
+
+    private void readCsv(BufferedReader reader, Runnable onBatch) throws IOException {
+        List<String> header = Csv.readRow(reader);
+        if (header == null) return;
+        if (!header.isEmpty()) {
+            header.set(0, header.get(0).replace("\uFEFF", ""));
+        }
+        int category = header.indexOf(TaskExporter.CATEGORY);
+        int name = header.indexOf(TaskExporter.NAME);
+        int isDone = header.indexOf(TaskExporter.IS_DONE);
+        int timestampCreated = header.indexOf(TaskExporter.TIMESTAMP_CREATED);
+        int timestampDone = header.indexOf(TaskExporter.TIMESTAMP_DONE);
+        int dueTimestamp = header.indexOf(TaskExporter.DUE_TIMESTAMP);
+        int reminderOffset = header.indexOf(TaskExporter.REMINDER_OFFSET);
+        if (name < 0) {
+            throw new IOException("CSV header has no " + TaskExporter.NAME + " column");
+        }
+
+        List<String> row;
+        while ((row = Csv.readRow(reader)) != null) {
+            if (row.size() == 1 && row.get(0).isEmpty()) continue; // Blank line
+            Task task = new Task(field(row, name), 0, parseLong(field(row, timestampCreated)));
+            String done = field(row, isDone);
+            task.isDone = "1".equals(done) || "true".equalsIgnoreCase(done);
+            task.timestampDone = parseLong(field(row, timestampDone));
+            String due = field(row, dueTimestamp);
+            task.setDue(due == null || due.isEmpty() ? null : parseLong(due), parseLong(field(row, reminderOffset)));
+            add(task, field(row, category));
+            if (mBatch.size() >= BATCH_SIZE) {
+                flush();
+                onBatch.run();
+            }
+        }
+    }
+
+    private void add(Task task, String category) {
+        if (task.name == null) task.name = "";
+        if (task.timestampCreated == 0) task.timestampCreated = System.currentTimeMillis();
+        if (!task.isDone) task.timestampDone = 0;
+        mBatch.add(task);
+        mBatchCategories.add(category == null || category.isEmpty() ? DEFAULT_CATEGORY : category);
+    }
+
+    // One transaction per batch, so the writer lane is released between batches
+    private void flush() throws IOException {
+        if (mBatch.isEmpty()) return;
+        List<Task> tasks = new ArrayList<>(mBatch);
+        List<String> categories = new ArrayList<>(mBatchCategories);
+        onWriter(() -> mDatabase.runInTransaction(() -> {
+            for (int i = 0; i < tasks.size(); i++) {
+                tasks.get(i).categoryId = resolveCategory(categories.get(i));
+            }
+            mDatabase.taskDao().insertAll(tasks);
+        }));
+        mRows += tasks.size();
+        mBatch.clear();
+        mBatchCategories.clear();
+    }
+
+    // Called on the writer lane; the map spares a lookup per row
+    private int resolveCategory(String name) {
+        Integer id = mCategoryIds.get(name);
+        if (id == null) {
+            CategoryDao categoryDao = mDatabase.categoryDao();
+            Category existing = categoryDao.getCategoryByName(name);
+            id = existing != null ? existing.id : (int) categoryDao.insert(new Category(name));
+            mCategoryIds.put(name, id);
+        }
+        return id;
+    }
+
+    private void onWriter(Runnable work) throws IOException {
+        try {
+            DatabaseExecutors.writer().submit(work).get();
+        } catch (ExecutionException e) {
+            // A rolled back batch may have created categories that no longer exist
+            mCategoryIds.clear();
+            throw new IOException("Import failed after " + mRows + " rows", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Import interrupted after " + mRows + " rows");
+        }
+    }
+
+    private static String field(List<String> row, int index) {
+        return index >= 0 && index < row.size() ? row.get(index) : null;
+    }
+
+    private static long parseLong(String value) throws IOException {
+        if (value == null || value.isEmpty()) return 0;
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IOException("Not a number: " + value, e);
+        }
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+        long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) count++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) count += n;
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
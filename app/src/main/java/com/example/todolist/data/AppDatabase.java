@@ -5,47 +5,159 @@ import android.content.Context;
 import androidx.room.Database;
 import androidx.room.Room;
 import androidx.room.RoomDatabase;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import com.example.todolist.metrics.StartupMetrics;
 
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
-@Database(entities = { Task.class, Category.class }, version = 1, exportSchema = false)
+@Database(entities = { Task.class, Category.class, TaskFts.class, NotificationTime.class, TaskChange.class }, version = 7, exportSchema = false)
 public abstract class AppDatabase extends RoomDatabase {
 
     public abstract TaskDao taskDao();
 
     public abstract CategoryDao categoryDao();
 
+    public abstract NotificationTimeDao notificationTimeDao();
+
+    public abstract TaskChangeDao taskChangeDao();
+
     private static volatile AppDatabase INSTANCE;
-    private static final int NUMBER_OF_THREADS = 4;
-    public static final ExecutorService databaseWriteExecutor = Executors.newFixedThreadPool(NUMBER_OF_THREADS);
+    // Single ordered writer lane, see DatabaseExecutors
+    public static final ExecutorService databaseWriteExecutor = DatabaseExecutors.writer();
 
     public static AppDatabase getDatabase(final Context context) {
         if (INSTANCE == null) {
             synchronized (AppDatabase.class) {
                 if (INSTANCE == null) {
-                    INSTANCE = Room.databaseBuilder(context.getApplicationContext(),
-                            AppDatabase.class, "todolist_database")
-                            .addCallback(sRoomDatabaseCallback)
-                            .build();
+                    INSTANCE = StartupMetrics.trace("AppDatabase.getDatabase", () ->
+                            Room.databaseBuilder(context.getApplicationContext(),
+                                    AppDatabase.class, "todolist_database")
+                                    .addCallback(sRoomDatabaseCallback)
+                                    .addMigrations(MIGRATION_1_2, MIGRATION_2_3, MIGRATION_3_4, MIGRATION_4_5, MIGRATION_5_6, MIGRATION_6_7)
+                                    .setQueryExecutor(DatabaseExecutors.reader())
+                                    .setJournalMode(JournalMode.WRITE_AHEAD_LOGGING)
+                                    .build());
+                    // The file is opened by the first query, ends in onOpen
+                    StartupMetrics.beginDatabaseOpen();
                 }
             }
         }
         return INSTANCE;
     }
 
+    // Full-text index on task names, same statements Room generates for TaskFts
+    static final Migration MIGRATION_1_2 = new Migration(1, 2) {
+        @Override
+        public void migrate(SupportSQLiteDatabase db) {
+            db.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS `tasks_fts` USING FTS4(`name` TEXT, content=`tasks`, prefix=`2,3`)");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_tasks_fts_BEFORE_UPDATE BEFORE UPDATE ON `tasks` BEGIN DELETE FROM `tasks_fts` WHERE `docid`=OLD.`rowid`; END");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_tasks_fts_BEFORE_DELETE BEFORE DELETE ON `tasks` BEGIN DELETE FROM `tasks_fts` WHERE `docid`=OLD.`rowid`; END");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_tasks_fts_AFTER_UPDATE AFTER UPDATE ON `tasks` BEGIN INSERT INTO `tasks_fts`(`docid`, `name`) VALUES (NEW.`rowid`, NEW.`name`); END");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_tasks_fts_AFTER_INSERT AFTER INSERT ON `tasks` BEGIN INSERT INTO `tasks_fts`(`docid`, `name`) VALUES (NEW.`rowid`, NEW.`name`); END");
+            // Index the rows that already exist
+            db.execSQL("INSERT INTO `tasks_fts`(`tasks_fts`) VALUES('rebuild')");
+        }
+    };
+
+    // Composite indices for the TaskDao sort orders and the category name lookup
+    static final Migration MIGRATION_2_3 = new Migration(2, 3) {
+        @Override
+        public void migrate(SupportSQLiteDatabase db) {
+            db.execSQL("DROP INDEX IF EXISTS `index_tasks_categoryId`");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_tasks_categoryId_isDone_timestampCreated` ON `tasks` (`categoryId` ASC, `isDone` ASC, `timestampCreated` DESC)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_tasks_isDone_timestampCreated` ON `tasks` (`isDone` ASC, `timestampCreated` DESC)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_tasks_isDone_timestampDone` ON `tasks` (`isDone`, `timestampDone`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_categories_name` ON `categories` (`name`)");
+        }
+    };
+
+    // Reminder slots move from SharedPreferences JSON to a table, rows are imported by AlarmStore
+    static final Migration MIGRATION_3_4 = new Migration(3, 4) {
+        @Override
+        public void migrate(SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `notification_times` (`hour` INTEGER NOT NULL, `minute` INTEGER NOT NULL, `isEnabled` INTEGER NOT NULL, PRIMARY KEY(`hour`, `minute`))");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_notification_times_isEnabled_hour_minute` ON `notification_times` (`isEnabled`, `hour`, `minute`)");
+        }
+    };
+
+    // Optional due date per task; reminderAt is indexed so the next reminder is a single seek
+    static final Migration MIGRATION_4_5 = new Migration(4, 5) {
+        @Override
+        public void migrate(SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE `tasks` ADD COLUMN `dueTimestamp` INTEGER");
+            db.execSQL("ALTER TABLE `tasks` ADD COLUMN `reminderOffset` INTEGER NOT NULL DEFAULT 0");
+            db.execSQL("ALTER TABLE `tasks` ADD COLUMN `reminderAt` INTEGER");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_tasks_isDone_reminderAt` ON `tasks` (`isDone`, `reminderAt`)");
+        }
+    };
+
+    // Covering index for the per-category summary shown in reminders
+    static final Migration MIGRATION_5_6 = new Migration(5, 6) {
+        @Override
+        public void migrate(SupportSQLiteDatabase db) {
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_tasks_isDone_categoryId_dueTimestamp` ON `tasks` (`isDone`, `categoryId`, `dueTimestamp`)");
+        }
+    };
+
+    // Every insert, update and delete on tasks and categories appends to task_changes,
+    // in the writing transaction. Cascaded deletes of a category's tasks fire them too.
+    private static final String NOW_MILLIS = "CAST((julianday('now') - 2440587.5) * 86400000 AS INTEGER)";
+    private static final String LOG_CHANGE = "INSERT INTO `task_changes`(`source`, `op`, `itemId`, `categoryId`, `previousCategoryId`, `changedAt`) VALUES ";
+    static final String[] CHANGE_LOG_TRIGGERS = {
+            "CREATE TRIGGER IF NOT EXISTS task_changes_tasks_AFTER_INSERT AFTER INSERT ON `tasks` BEGIN " + LOG_CHANGE
+                    + "(" + TaskChange.SOURCE_TASK + ", " + TaskChange.OP_INSERT + ", NEW.`id`, NEW.`categoryId`, NEW.`categoryId`, " + NOW_MILLIS + "); END",
+            "CREATE TRIGGER IF NOT EXISTS task_changes_tasks_AFTER_UPDATE AFTER UPDATE ON `tasks` BEGIN " + LOG_CHANGE
+                    + "(" + TaskChange.SOURCE_TASK + ", " + TaskChange.OP_UPDATE + ", NEW.`id`, NEW.`categoryId`, OLD.`categoryId`, " + NOW_MILLIS + "); END",
+            "CREATE TRIGGER IF NOT EXISTS task_changes_tasks_AFTER_DELETE AFTER DELETE ON `tasks` BEGIN " + LOG_CHANGE
+                    + "(" + TaskChange.SOURCE_TASK + ", " + TaskChange.OP_DELETE + ", OLD.`id`, OLD.`categoryId`, OLD.`categoryId`, " + NOW_MILLIS + "); END",
+            "CREATE TRIGGER IF NOT EXISTS task_changes_categories_AFTER_INSERT AFTER INSERT ON `categories` BEGIN " + LOG_CHANGE
+                    + "(" + TaskChange.SOURCE_CATEGORY + ", " + TaskChange.OP_INSERT + ", NEW.`id`, NEW.`id`, NEW.`id`, " + NOW_MILLIS + "); END",
+            "CREATE TRIGGER IF NOT EXISTS task_changes_categories_AFTER_UPDATE AFTER UPDATE ON `categories` BEGIN " + LOG_CHANGE
+                    + "(" + TaskChange.SOURCE_CATEGORY + ", " + TaskChange.OP_UPDATE + ", NEW.`id`, NEW.`id`, OLD.`id`, " + NOW_MILLIS + "); END",
+            "CREATE TRIGGER IF NOT EXISTS task_changes_categories_AFTER_DELETE AFTER DELETE ON `categories` BEGIN " + LOG_CHANGE
+                    + "(" + TaskChange.SOURCE_CATEGORY + ", " + TaskChange.OP_DELETE + ", OLD.`id`, OLD.`id`, OLD.`id`, " + NOW_MILLIS + "); END",
+    };
+
+    static void createChangeLogTriggers(SupportSQLiteDatabase db) {
+        for (String trigger : CHANGE_LOG_TRIGGERS) {
+            db.execSQL(trigger);
+        }
+    }
+
+    // Append-only change log for incremental consumers, see TaskChangeDao. Existing rows
+    // are not logged; a consumer starts from the latest seq after its own full read.
+    static final Migration MIGRATION_6_7 = new Migration(6, 7) {
+        @Override
+        public void migrate(SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `task_changes` (`seq` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `source` INTEGER NOT NULL, "
+                    + "`op` INTEGER NOT NULL, `itemId` INTEGER NOT NULL, `categoryId` INTEGER NOT NULL, "
+                    + "`previousCategoryId` INTEGER NOT NULL, `changedAt` INTEGER NOT NULL)");
+            createChangeLogTriggers(db);
+        }
+    };
+
     private static RoomDatabase.Callback sRoomDatabaseCallback = new RoomDatabase.Callback() {
         @Override
         public void onCreate(androidx.sqlite.db.SupportSQLiteDatabase db) {
             super.onCreate(db);
+            // Room creates the table from TaskChange, but not triggers
+            createChangeLogTriggers(db);
             // If you want to populate the DB on creation
-            databaseWriteExecutor.execute(() -> {
+            databaseWriteExecutor.execute(() -> StartupMetrics.trace(StartupMetrics.SECTION_DATABASE_SEED, () -> {
                 CategoryDao dao = INSTANCE.categoryDao();
                 dao.insert(new Category("Urgent"));
                 dao.insert(new Category("Long Term"));
                 dao.insert(new Category("Short Term"));
                 dao.insert(new Category("Shopping"));
-            });
+            }));
+        }
+
+        @Override
+        public void onOpen(androidx.sqlite.db.SupportSQLiteDatabase db) {
+            super.onOpen(db);
+            StartupMetrics.endDatabaseOpen();
         }
     };
 }
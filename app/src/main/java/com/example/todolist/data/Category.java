@@ -1,9 +1,10 @@
 package com.example.todolist.data;
 
 import androidx.room.Entity;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 
-@Entity(tableName = "categories")
+@Entity(tableName = "categories", indices = { @Index("name") })
 public class Category {
     @PrimaryKey(autoGenerate = true)
     public int id;
@@ -0,0 +1,12 @@
+package com.example.todolist.data;
+
+// Task counts of one category, shown on collapsed headers; see TaskDao.getCategoryCounts
+public class CategoryCount {
+    public int categoryId;
+    public int totalCount;
+    public int doneCount;
+
+    public int getOpenCount() {
+        return totalCount - doneCount;
+    }
+}
@@ -12,7 +12,7 @@ import java.util.List;
 @Dao
 public interface CategoryDao {
     @Insert
-    void insert(Category category);
+    long insert(Category category);
 
     @Delete
     void delete(Category category);
@@ -25,4 +25,7 @@ public interface CategoryDao {
 
     @Query("SELECT * FROM categories WHERE name = :name LIMIT 1")
     Category getCategoryByName(String name);
+
+    @Query("SELECT name FROM categories ORDER BY id")
+    List<String> getAllCategoryNames();
 }
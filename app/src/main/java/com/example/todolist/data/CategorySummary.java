@@ -0,0 +1,10 @@
+package com.example.todolist.data;
+
+// Open task count of one category and its earliest due task, see TaskDao.getOpenTaskSummary
+public class CategorySummary {
+    public int categoryId;
+    public String categoryName;
+    public int openCount;
+    public Long earliestDue; // null if no open task in the category has a due date
+    public String earliestDueName;
+}
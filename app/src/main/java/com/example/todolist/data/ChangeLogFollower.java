@@ -0,0 +1,141 @@
+package com.example.todolist.data;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.room.InvalidationTracker;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps TaskCache in step with writes that bypass the repository (retention purge,
+ * import, cascaded deletes) by following the task_changes log. Room's
+ * InvalidationTracker only says that the log grew; the new entries name the rows
+ * to re-read, page by page, so catching up costs O(changes) instead of reloading
+ * every category. Entries whose categories are not cached are skipped without
+ * reading their rows. Large pages reach the cache as one bulk change.
+ * Writes made through the repository are already in the cache and are skipped,
+ * while still queued in TaskWriteQueue or, once written, by content.
+ */
+public class ChangeLogFollower {
+    private static final String TAG = "ChangeLogFollower";
+
+    private static final int PAGE_SIZE = 1000;
+    // Well under SQLite's bound parameter limit
+    private static final int READ_CHUNK_SIZE = 500;
+
+    private static volatile ChangeLogFollower INSTANCE;
+
+    private final TaskDao mTaskDao;
+    private final TaskChangeDao mChangeDao;
+    private final TaskCache mCache;
+    private final TaskWriteQueue mWriteQueue;
+
+    // Catch-ups run one at a time, in log order
+    private final ExecutorService mExecutor = Executors.newSingleThreadExecutor();
+    private final AtomicBoolean mCatchUpQueued = new AtomicBoolean(false);
+
+    // Only touched on mExecutor
+    private long mLastSeq;
+
+    public static ChangeLogFollower getInstance(final Context context) {
+        if (INSTANCE == null) {
+            synchronized (ChangeLogFollower.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new ChangeLogFollower(AppDatabase.getDatabase(context),
+                            TaskCache.getInstance(context), TaskWriteQueue.getInstance(context));
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    private ChangeLogFollower(AppDatabase database, TaskCache cache, TaskWriteQueue writeQueue) {
+        mTaskDao = database.taskDao();
+        mChangeDao = database.taskChangeDao();
+        mCache = cache;
+        mWriteQueue = writeQueue;
+        // Older entries are already reflected in whatever the cache loads
+        mExecutor.execute(() -> mLastSeq = mChangeDao.getLatestSeq());
+        database.getInvalidationTracker().addObserver(new InvalidationTracker.Observer(TaskChange.TABLE) {
+            @Override
+            public void onInvalidated(@NonNull Set<String> tables) {
+                if (mCatchUpQueued.compareAndSet(false, true)) {
+                    mExecutor.execute(ChangeLogFollower.this::catchUp);
+                }
+            }
+        });
+    }
+
+    private void catchUp() {
+        mCatchUpQueued.set(false);
+        try {
+            if (mChangeDao.getOldestSeq() > mLastSeq + 1) {
+                reloadAll(); // Compacted past us, the entries in between are gone
+                return;
+            }
+            List<TaskChange> changes;
+            do {
+                changes = mChangeDao.getChangesAfter(mLastSeq, PAGE_SIZE);
+                if (changes.isEmpty()) return;
+                apply(changes);
+                mLastSeq = changes.get(changes.size() - 1).seq;
+            } while (changes.size() == PAGE_SIZE);
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Could not follow the change log", e);
+        }
+    }
+
+    private void reloadAll() {
+        mLastSeq = mChangeDao.getLatestSeq();
+        mCache.invalidateAll();
+    }
+
+    private void apply(List<TaskChange> changes) {
+        // Only tasks that were in, or moved into, a cached category are read back;
+        // a category cached later loads the committed rows itself
+        Set<Integer> cachedCategories = mCache.getCachedCategoryIds();
+        Set<Integer> touched = new HashSet<>();
+        // Last entry per task wins
+        Map<Integer, Boolean> deletedById = new LinkedHashMap<>();
+        List<Integer> deletedCategories = new ArrayList<>();
+        for (TaskChange change : changes) {
+            if (change.source == TaskChange.SOURCE_CATEGORY) {
+                if (change.op == TaskChange.OP_DELETE) {
+                    deletedCategories.add(change.itemId);
+                }
+            } else if (!mWriteQueue.isPending(change.itemId)) {
+                deletedById.put(change.itemId, change.op == TaskChange.OP_DELETE);
+                if (cachedCategories.contains(change.categoryId)
+                        || cachedCategories.contains(change.previousCategoryId)) {
+                    touched.add(change.itemId);
+                }
+            }
+        }
+
+        List<Integer> changedIds = new ArrayList<>();
+        List<Integer> deletedIds = new ArrayList<>();
+        for (Map.Entry<Integer, Boolean> entry : deletedById.entrySet()) {
+            if (touched.contains(entry.getKey())) {
+                (entry.getValue() ? deletedIds : changedIds).add(entry.getKey());
+            }
+        }
+        List<Task> changed = new ArrayList<>(changedIds.size());
+        for (int i = 0; i < changedIds.size(); i += READ_CHUNK_SIZE) {
+            changed.addAll(mTaskDao.getTasksByIds(changedIds.subList(i, Math.min(i + READ_CHUNK_SIZE, changedIds.size()))));
+        }
+        mCache.applyChanges(changed, deletedIds);
+        for (int categoryId : deletedCategories) {
+            mCache.removeCategory(categoryId);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.todolist.data;
+
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Database threads: one writer lane that runs mutations strictly in submission
+ * order, and a small pool for reads. SQLite only allows one writer at a time,
+ * so extra writer threads would just queue on the lock.
+ */
+public final class DatabaseExecutors {
+    private static final int READ_THREADS = 3;
+
+    private static final InstrumentedExecutor sWriter = new InstrumentedExecutor("db-writer", 1);
+    private static final InstrumentedExecutor sReader = new InstrumentedExecutor("db-reader", READ_THREADS);
+
+    private DatabaseExecutors() {
+    }
+
+    public static InstrumentedExecutor writer() {
+        return sWriter;
+    }
+
+    public static InstrumentedExecutor reader() {
+        return sReader;
+    }
+
+    // Thread pool that records how long tasks wait in its queue
+    public static class InstrumentedExecutor extends ThreadPoolExecutor {
+        private final AtomicLong mExecutedCount = new AtomicLong();
+        private final AtomicLong mTotalWaitNanos = new AtomicLong();
+        private final AtomicLong mMaxWaitNanos = new AtomicLong();
+
+        InstrumentedExecutor(String name, int threads) {
+            super(threads, threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), new NamedThreadFactory(name));
+        }
+
+        @Override
+        public void execute(@NonNull Runnable command) {
+            super.execute(new TimedRunnable(command));
+        }
+
+        @Override
+        protected void beforeExecute(Thread t, Runnable r) {
+            super.beforeExecute(t, r);
+            if (r instanceof TimedRunnable) {
+                long wait = System.nanoTime() - ((TimedRunnable) r).enqueuedAt;
+                mExecutedCount.incrementAndGet();
+                mTotalWaitNanos.addAndGet(wait);
+                mMaxWaitNanos.accumulateAndGet(wait, Math::max);
+            }
+        }
+
+        public int getQueueDepth() {
+            return getQueue().size();
+        }
+
+        public long getAverageWaitMillis() {
+            long count = mExecutedCount.get();
+            return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(mTotalWaitNanos.get() / count);
+        }
+
+        public long getMaxWaitMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(mMaxWaitNanos.get());
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return "queued=" + getQueueDepth()
+                    + ", executed=" + mExecutedCount.get()
+                    + ", avgWaitMs=" + getAverageWaitMillis()
+                    + ", maxWaitMs=" + getMaxWaitMillis();
+        }
+    }
+
+    private static class TimedRunnable implements Runnable {
+        final Runnable delegate;
+        final long enqueuedAt = System.nanoTime();
+
+        TimedRunnable(Runnable delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void run() {
+            delegate.run();
+        }
+    }
+
+    private static class NamedThreadFactory implements ThreadFactory {
+        private final String mName;
+        private final AtomicInteger mCount = new AtomicInteger();
+
+        NamedThreadFactory(String name) {
+            mName = name;
+        }
+
+        @Override
+        public Thread newThread(@NonNull Runnable r) {
+            return new Thread(r, mName + "-" + mCount.incrementAndGet());
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.todolist.data;
+
+import java.util.Locale;
+
+// Turns user input into an FTS MATCH expression; quotes and operators are dropped
+public final class FtsQuery {
+
+    private FtsQuery() {
+    }
+
+    // "buy mil" -> "buy* mil*"
+    public static String prefix(String input) {
+        return build(input, true);
+    }
+
+    // "buy milk" -> "buy milk"
+    public static String tokens(String input) {
+        return build(input, false);
+    }
+
+    private static String build(String input, boolean prefix) {
+        if (input == null) return "";
+        StringBuilder match = new StringBuilder();
+        for (String token : input.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (token.isEmpty()) continue;
+            if (match.length() > 0) match.append(' ');
+            match.append(token);
+            if (prefix) match.append('*');
+        }
+        return match.toString();
+    }
+}
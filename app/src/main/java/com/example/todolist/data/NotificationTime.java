@@ -1,5 +1,18 @@
 package com.example.todolist.data;
 
+import androidx.room.Entity;
+import androidx.room.Index;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// One daily reminder slot, unique per minute of the day
+@Entity(tableName = "notification_times", primaryKeys = { "hour", "minute" }, indices = {
+        @Index(value = { "isEnabled", "hour", "minute" }) })
 public class NotificationTime {
     public int hour;
     public int minute;
@@ -23,4 +36,19 @@ public class NotificationTime {
         NotificationTime that = (NotificationTime) o;
         return hour == that.hour && minute == that.minute;
     }
+
+    // Format used by the SharedPreferences store before AlarmStore
+    public static List<NotificationTime> fromJson(String json) throws JSONException {
+        JSONArray array = new JSONArray(json);
+        List<NotificationTime> times = new ArrayList<>(array.length());
+        for (int i = 0; i < array.length(); i++) {
+            JSONObject obj = array.getJSONObject(i);
+            times.add(new NotificationTime(
+                    obj.getInt("hour"),
+                    obj.getInt("minute"),
+                    obj.getBoolean("isEnabled")
+            ));
+        }
+        return times;
+    }
 }
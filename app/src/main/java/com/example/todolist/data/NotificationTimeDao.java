@@ -0,0 +1,39 @@
+package com.example.todolist.data;
+
+import androidx.lifecycle.LiveData;
+import androidx.room.Dao;
+import androidx.room.Delete;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+import androidx.room.Update;
+
+import java.util.List;
+
+@Dao
+public interface NotificationTimeDao {
+    // Ignores a slot that already exists
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    void insert(NotificationTime time);
+
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    void insertAll(List<NotificationTime> times);
+
+    @Update
+    void update(NotificationTime time);
+
+    @Delete
+    void delete(NotificationTime time);
+
+    @Query("SELECT * FROM notification_times ORDER BY hour ASC, minute ASC")
+    LiveData<List<NotificationTime>> getAll();
+
+    @Query("SELECT * FROM notification_times WHERE isEnabled = 1 ORDER BY hour ASC, minute ASC")
+    List<NotificationTime> getEnabled();
+
+    @Query("SELECT * FROM notification_times WHERE hour = :hour AND minute = :minute LIMIT 1")
+    NotificationTime get(int hour, int minute);
+
+    @Query("SELECT COUNT(*) FROM notification_times")
+    int count();
+}
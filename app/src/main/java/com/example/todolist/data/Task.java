@@ -1,12 +1,18 @@
 package com.example.todolist.data;
 
+import androidx.room.ColumnInfo;
 import androidx.room.Entity;
 import androidx.room.ForeignKey;
 import androidx.room.Index;
 import androidx.room.PrimaryKey;
 
+// Indices match the ORDER BY / WHERE clauses in TaskDao, see QueryPlanTest
 @Entity(tableName = "tasks", foreignKeys = @ForeignKey(entity = Category.class, parentColumns = "id", childColumns = "categoryId", onDelete = ForeignKey.CASCADE), indices = {
-        @Index("categoryId") })
+        @Index(value = { "categoryId", "isDone", "timestampCreated" }, orders = { Index.Order.ASC, Index.Order.ASC, Index.Order.DESC }),
+        @Index(value = { "isDone", "timestampCreated" }, orders = { Index.Order.ASC, Index.Order.DESC }),
+        @Index(value = { "isDone", "timestampDone" }),
+        @Index(value = { "isDone", "reminderAt" }),
+        @Index(value = { "isDone", "categoryId", "dueTimestamp" }) })
 public class Task {
     @PrimaryKey(autoGenerate = true)
     public int id;
@@ -17,6 +23,11 @@ public class Task {
     public long timestampDone; // 0 if not done
     public int categoryId;
 
+    public Long dueTimestamp; // null if no due date
+    @ColumnInfo(defaultValue = "0")
+    public long reminderOffset; // millis before dueTimestamp
+    public Long reminderAt; // dueTimestamp - reminderOffset, kept by setDue() for the reminder index
+
     public Task(String name, int categoryId, long timestampCreated) {
         this.name = name;
         this.categoryId = categoryId;
@@ -24,4 +35,26 @@ public class Task {
         this.isDone = false;
         this.timestampDone = 0;
     }
+
+    public Task copy() {
+        Task copy = new Task(name, categoryId, timestampCreated);
+        copy.id = id;
+        copy.isDone = isDone;
+        copy.timestampDone = timestampDone;
+        copy.dueTimestamp = dueTimestamp;
+        copy.reminderOffset = reminderOffset;
+        copy.reminderAt = reminderAt;
+        return copy;
+    }
+
+    // Pass null to clear the due date and its reminder
+    public void setDue(Long dueTimestamp, long reminderOffset) {
+        this.dueTimestamp = dueTimestamp;
+        this.reminderOffset = dueTimestamp == null ? 0 : reminderOffset;
+        this.reminderAt = dueTimestamp == null ? null : dueTimestamp - reminderOffset;
+    }
+
+    public boolean hasReminder() {
+        return reminderAt != null;
+    }
 }
@@ -0,0 +1,379 @@
+package com.example.todolist.data;
+
+import android.content.Context;
+
+import com.example.todolist.metrics.PerformanceMonitor;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-through cache of tasks grouped by category. Repository writes update it
+ * before they are persisted, so per-category readers see the new state without
+ * re-querying SQLite. Readers register a CategoryListener and get one call per
+ * changed task, so a toggle does not re-send its category. Categories nobody
+ * listens to are evicted in LRU order once the cache holds more than
+ * MAX_CACHED_TASKS tasks.
+ */
+public class TaskCache {
+    // Roughly 200 bytes per cached Task with its name
+    private static final int MAX_CACHED_TASKS = 20_000;
+
+    // Same order as TaskDao: open tasks first, newest first
+    static final Comparator<Task> TASK_ORDER = (a, b) -> {
+        if (a.isDone != b.isDone) {
+            return a.isDone ? 1 : -1;
+        }
+        return Long.compare(b.timestampCreated, a.timestampCreated);
+    };
+
+    private static volatile TaskCache INSTANCE;
+
+    private final TaskDao mTaskDao;
+
+    // Guarded by this; access order makes iteration go from least to most recently used
+    private final LinkedHashMap<Integer, CategoryEntry> mCategories = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Integer, Integer> mTaskCategory = new HashMap<>();
+    private int mSize = 0;
+
+    private final AtomicLong mHits = new AtomicLong();
+    private final AtomicLong mMisses = new AtomicLong();
+    private final AtomicLong mEvictions = new AtomicLong();
+
+    // Guarded by this; categories touched by the bulk change being applied, else null
+    private Set<Integer> mBulkTouched;
+
+    // From this many rows on, changes are applied as one bulk change
+    private static final int BULK_MIN_ROWS = 64;
+
+    /**
+     * Row-level changes of one category. Called with the cache lock held and in
+     * write order, so implementations must only hand the change off.
+     */
+    public interface CategoryListener {
+        // Full contents after a (re)load or a bulk change, in TaskDao order
+        void onCategoryLoaded(int categoryId, List<Task> tasks);
+        // Inserted into or updated in this category
+        void onTaskChanged(Task task);
+        // Deleted, or moved to another category
+        void onTaskRemoved(int categoryId, int taskId);
+    }
+
+    private static class CategoryEntry {
+        final Map<Integer, Task> tasks = new HashMap<>();
+        final List<CategoryListener> listeners = new ArrayList<>();
+        boolean loaded = false;
+        // Writes that landed while loading, replayed over the loaded rows; null removes
+        final Map<Integer, Task> pending = new LinkedHashMap<>();
+
+        boolean isObserved() {
+            return !listeners.isEmpty();
+        }
+    }
+
+    public static TaskCache getInstance(final Context context) {
+        if (INSTANCE == null) {
+            synchronized (TaskCache.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new TaskCache(AppDatabase.getDatabase(context).taskDao());
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    private TaskCache(TaskDao taskDao) {
+        mTaskDao = taskDao;
+        PerformanceMonitor.addReportSection(this::statsSummary);
+    }
+
+    // Sends the category's current rows once loaded, from the cache on a hit.
+    // The listener stays registered, and the category cached, until removed.
+    public void addListener(int categoryId, CategoryListener listener) {
+        CategoryEntry entry;
+        boolean hit;
+        synchronized (this) {
+            entry = mCategories.get(categoryId);
+            if (entry == null) {
+                entry = new CategoryEntry();
+                mCategories.put(categoryId, entry);
+            }
+            entry.listeners.add(listener);
+            hit = entry.loaded;
+            if (hit) {
+                listener.onCategoryLoaded(categoryId, sorted(entry));
+            }
+        }
+        if (hit) {
+            mHits.incrementAndGet();
+        } else {
+            mMisses.incrementAndGet();
+            load(categoryId);
+        }
+    }
+
+    public synchronized void removeListener(int categoryId, CategoryListener listener) {
+        CategoryEntry entry = mCategories.get(categoryId);
+        if (entry != null) {
+            entry.listeners.remove(listener);
+        }
+    }
+
+    // Insert or update; handles tasks that moved to another category
+    public synchronized void put(Task task) {
+        Integer oldCategoryId = mTaskCategory.get(task.id);
+        if (oldCategoryId != null && oldCategoryId != task.categoryId) {
+            removeInternal(task.id);
+        }
+        deferToLoads(task.id, task);
+        CategoryEntry entry = mCategories.get(task.categoryId);
+        if (entry == null || !entry.loaded) {
+            return; // Not cached, or replayed once the load finishes
+        }
+        if (entry.tasks.put(task.id, task) == null) {
+            mSize++;
+        }
+        mTaskCategory.put(task.id, task.categoryId);
+        if (mBulkTouched != null) {
+            mBulkTouched.add(task.categoryId);
+            return;
+        }
+        for (CategoryListener listener : entry.listeners) {
+            listener.onTaskChanged(task);
+        }
+        trim();
+    }
+
+    public synchronized void remove(Task task) {
+        removeInternal(task.id);
+        deferToLoads(task.id, null);
+    }
+
+    // Bulk edits: every touched category is re-sent once, sorted, instead of row by row
+    public synchronized void putAll(List<Task> tasks) {
+        beginBulk();
+        try {
+            for (Task task : tasks) {
+                put(task);
+            }
+        } finally {
+            endBulk();
+        }
+    }
+
+    public synchronized void removeAll(List<Task> tasks) {
+        beginBulk();
+        try {
+            for (Task task : tasks) {
+                remove(task);
+            }
+        } finally {
+            endBulk();
+        }
+    }
+
+    public synchronized void removeCategory(int categoryId) {
+        CategoryEntry entry = mCategories.remove(categoryId);
+        if (entry != null) {
+            dropTasks(entry);
+            for (CategoryListener listener : entry.listeners) {
+                listener.onCategoryLoaded(categoryId, new ArrayList<>());
+            }
+        }
+    }
+
+    // When the change log cannot be applied row by row: reload what is observed, drop the rest
+    public void invalidateAll() {
+        List<Integer> reload = new ArrayList<>();
+        synchronized (this) {
+            Iterator<Map.Entry<Integer, CategoryEntry>> it = mCategories.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<Integer, CategoryEntry> e = it.next();
+                dropTasks(e.getValue());
+                e.getValue().loaded = false;
+                if (e.getValue().isObserved()) {
+                    reload.add(e.getKey());
+                } else {
+                    it.remove();
+                }
+            }
+        }
+        for (int categoryId : reload) {
+            load(categoryId);
+        }
+    }
+
+    // Rows named by the change log, re-read from the database. Writes made through
+    // the repository are already here and are skipped by content.
+    public synchronized void applyChanges(List<Task> changed, List<Integer> deletedIds) {
+        boolean bulk = changed.size() + deletedIds.size() >= BULK_MIN_ROWS;
+        if (bulk) beginBulk();
+        try {
+            for (int taskId : deletedIds) {
+                removeInternal(taskId);
+                deferToLoads(taskId, null);
+            }
+            for (Task task : changed) {
+                Integer categoryId = mTaskCategory.get(task.id);
+                Task cached = categoryId != null ? mCategories.get(categoryId).tasks.get(task.id) : null;
+                if (cached == null || !sameContent(cached, task)) {
+                    put(task);
+                }
+            }
+        } finally {
+            if (bulk) endBulk();
+        }
+    }
+
+    // Categories loaded or loading; changes to other categories need not be applied
+    public synchronized Set<Integer> getCachedCategoryIds() {
+        return new HashSet<>(mCategories.keySet());
+    }
+
+    public long getHitCount() { return mHits.get(); }
+    public long getMissCount() { return mMisses.get(); }
+    public long getEvictionCount() { return mEvictions.get(); }
+    public synchronized int getSize() { return mSize; }
+
+    // One line for the debug performance report
+    public String statsSummary() {
+        long hits = mHits.get();
+        long lookups = hits + mMisses.get();
+        return String.format(Locale.US, "Task cache: %d tasks, %d lookups, %.1f%% hits, %d evictions",
+                getSize(), lookups, lookups == 0 ? 0 : hits * 100.0 / lookups, mEvictions.get());
+    }
+
+    private void load(int categoryId) {
+        DatabaseExecutors.reader().execute(() -> {
+            List<Task> tasks = mTaskDao.getTasksByCategorySync(categoryId);
+            synchronized (this) {
+                CategoryEntry entry = mCategories.get(categoryId);
+                if (entry == null || entry.loaded) {
+                    return; // Category was deleted, or an earlier load finished, meanwhile
+                }
+                dropTasks(entry);
+                boolean patched = !entry.pending.isEmpty();
+                for (Task t : tasks) {
+                    Integer cachedIn = mTaskCategory.get(t.id);
+                    if (entry.pending.containsKey(t.id) || (cachedIn != null && cachedIn != categoryId)) {
+                        patched = true; // Written meanwhile, or moved by a write not yet persisted
+                        continue;
+                    }
+                    entry.tasks.put(t.id, t);
+                    mTaskCategory.put(t.id, categoryId);
+                    mSize++;
+                }
+                for (Task task : entry.pending.values()) {
+                    if (task != null) {
+                        entry.tasks.put(task.id, task);
+                        mTaskCategory.put(task.id, categoryId);
+                        mSize++;
+                    }
+                }
+                entry.pending.clear();
+                entry.loaded = true;
+                List<Task> loaded = patched ? sorted(entry) : tasks;
+                for (CategoryListener listener : entry.listeners) {
+                    listener.onCategoryLoaded(categoryId, loaded);
+                }
+                trim();
+            }
+        });
+    }
+
+    // Called with the lock held. Records the write for every category still loading:
+    // its new category replays the task, the others drop a stale copy of it.
+    private void deferToLoads(int taskId, Task task) {
+        for (Map.Entry<Integer, CategoryEntry> e : mCategories.entrySet()) {
+            if (!e.getValue().loaded) {
+                e.getValue().pending.put(taskId, task != null && task.categoryId == e.getKey() ? task : null);
+            }
+        }
+    }
+
+    // Called with the lock held
+    private void beginBulk() {
+        mBulkTouched = new HashSet<>();
+    }
+
+    // Called with the lock held
+    private void endBulk() {
+        Set<Integer> touched = mBulkTouched;
+        mBulkTouched = null;
+        for (int categoryId : touched) {
+            CategoryEntry entry = mCategories.get(categoryId);
+            if (entry == null || !entry.loaded) continue;
+            List<Task> sorted = sorted(entry);
+            for (CategoryListener listener : entry.listeners) {
+                listener.onCategoryLoaded(categoryId, sorted);
+            }
+        }
+        trim();
+    }
+
+    // Called with the lock held
+    private void removeInternal(int taskId) {
+        Integer categoryId = mTaskCategory.remove(taskId);
+        if (categoryId == null) return;
+        CategoryEntry entry = mCategories.get(categoryId);
+        if (entry != null && entry.tasks.remove(taskId) != null) {
+            mSize--;
+            if (mBulkTouched != null) {
+                mBulkTouched.add(categoryId);
+                return;
+            }
+            for (CategoryListener listener : entry.listeners) {
+                listener.onTaskRemoved(categoryId, taskId);
+            }
+        }
+    }
+
+    // Called with the lock held
+    private void dropTasks(CategoryEntry entry) {
+        for (Integer taskId : entry.tasks.keySet()) {
+            mTaskCategory.remove(taskId);
+        }
+        mSize -= entry.tasks.size();
+        entry.tasks.clear();
+    }
+
+    // Called with the lock held
+    private static List<Task> sorted(CategoryEntry entry) {
+        List<Task> sorted = new ArrayList<>(entry.tasks.values());
+        sorted.sort(TASK_ORDER);
+        return sorted;
+    }
+
+    private static boolean sameContent(Task a, Task b) {
+        return a.isDone == b.isDone
+                && a.categoryId == b.categoryId
+                && a.timestampCreated == b.timestampCreated
+                && a.timestampDone == b.timestampDone
+                && a.reminderOffset == b.reminderOffset
+                && Objects.equals(a.dueTimestamp, b.dueTimestamp)
+                && Objects.equals(a.name, b.name);
+    }
+
+    // Called with the lock held; observed categories are never evicted
+    private void trim() {
+        Iterator<CategoryEntry> it = mCategories.values().iterator();
+        while (mSize > MAX_CACHED_TASKS && it.hasNext()) {
+            CategoryEntry entry = it.next();
+            if (!entry.isObserved()) {
+                dropTasks(entry);
+                it.remove();
+                mEvictions.incrementAndGet();
+            }
+        }
+    }
+}
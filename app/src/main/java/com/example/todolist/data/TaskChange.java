@@ -0,0 +1,32 @@
+package com.example.todolist.data;
+
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+// One entry of the append-only change log. Rows are only written by the triggers
+// in AppDatabase.CHANGE_LOG_TRIGGERS, in commit order, and removed by compaction.
+@Entity(tableName = TaskChange.TABLE)
+public class TaskChange {
+    public static final String TABLE = "task_changes";
+
+    // Entries kept by compaction; a consumer further behind reloads everything
+    public static final int RETAINED_CHANGES = 10_000;
+
+    public static final int SOURCE_TASK = 0;
+    public static final int SOURCE_CATEGORY = 1;
+
+    public static final int OP_INSERT = 0;
+    public static final int OP_UPDATE = 1;
+    public static final int OP_DELETE = 2;
+
+    // AUTOINCREMENT, so never reused after compaction
+    @PrimaryKey(autoGenerate = true)
+    public long seq;
+
+    public int source;
+    public int op;
+    public int itemId; // Task id, or category id
+    public int categoryId; // Category after the change; the category itself for SOURCE_CATEGORY
+    public int previousCategoryId; // Differs from categoryId when a task moved
+    public long changedAt;
+}
@@ -0,0 +1,27 @@
+package com.example.todolist.data;
+
+import androidx.room.Dao;
+import androidx.room.Query;
+
+import java.util.List;
+
+// Read side of the change log; entries are written by triggers only
+@Dao
+public interface TaskChangeDao {
+    // Oldest first; consumers pass the last seq they processed
+    @Query("SELECT * FROM task_changes WHERE seq > :afterSeq ORDER BY seq ASC LIMIT :limit")
+    List<TaskChange> getChangesAfter(long afterSeq, int limit);
+
+    // 0 while the log is empty
+    @Query("SELECT COALESCE(MAX(seq), 0) FROM task_changes")
+    long getLatestSeq();
+
+    // A consumer whose last seq is below this minus one has missed compacted entries
+    @Query("SELECT COALESCE(MIN(seq), 0) FROM task_changes")
+    long getOldestSeq();
+
+    // Drops up to limit entries older than the newest keep ones, run until it returns less than limit
+    @Query("DELETE FROM task_changes WHERE seq IN (SELECT seq FROM task_changes " +
+            "WHERE seq <= (SELECT MAX(seq) FROM task_changes) - :keep ORDER BY seq ASC LIMIT :limit)")
+    int compact(int keep, int limit);
+}
@@ -1,5 +1,7 @@
 package com.example.todolist.data;
 
+import android.database.Cursor;
+
 import androidx.lifecycle.LiveData;
 import androidx.room.Dao;
 import androidx.room.Delete;
@@ -7,6 +9,7 @@ import androidx.room.Insert;
 import androidx.room.Query;
 import androidx.room.Update;
 
+import java.util.Collections;
 import java.util.List;
 
 @Dao
@@ -20,12 +23,88 @@ public interface TaskDao {
     @Update
     void update(Task task);
 
+    @Insert
+    List<Long> insertAll(List<Task> tasks);
+
+    @Update
+    void updateAll(List<Task> tasks);
+
+    @Delete
+    void deleteAll(List<Task> tasks);
+
     @Query("SELECT * FROM tasks WHERE categoryId = :categoryId ORDER BY isDone ASC, timestampCreated DESC")
     LiveData<List<Task>> getTasksByCategory(int categoryId);
 
+    @Query("SELECT * FROM tasks WHERE categoryId = :categoryId ORDER BY isDone ASC, timestampCreated DESC")
+    List<Task> getTasksByCategorySync(int categoryId);
+
     @Query("SELECT * FROM tasks ORDER BY isDone ASC, timestampCreated DESC")
     LiveData<List<Task>> getAllTasks();
 
-    @Query("DELETE FROM tasks WHERE isDone = 1 AND timestampDone < :cutoffTimestamp")
-    void deleteOldCompletedTasks(long cutoffTimestamp);
+    // Keep ids under SQLite's bound parameter limit, missing ids are skipped
+    @Query("SELECT * FROM tasks WHERE id IN (:ids)")
+    List<Task> getTasksByIds(List<Integer> ids);
+
+    // Ranked: open tasks first, then shorter (denser) names, then newest
+    @Query("SELECT tasks.* FROM tasks JOIN tasks_fts ON tasks.id = tasks_fts.rowid " +
+            "WHERE tasks_fts MATCH :match " +
+            "ORDER BY tasks.isDone ASC, length(tasks.name) ASC, tasks.timestampCreated DESC LIMIT :limit")
+    List<Task> search(String match, int limit);
+
+    default List<Task> searchByPrefix(String text, int limit) {
+        String match = FtsQuery.prefix(text);
+        return match.isEmpty() ? Collections.emptyList() : search(match, limit);
+    }
+
+    default List<Task> searchByTokens(String text, int limit) {
+        String match = FtsQuery.tokens(text);
+        return match.isEmpty() ? Collections.emptyList() : search(match, limit);
+    }
+
+    @Query("SELECT COUNT(*) FROM tasks")
+    int getTaskCount();
+
+    // Header counts for every category in one pass over the covering
+    // index_tasks_categoryId_isDone_timestampCreated; categories without tasks are absent
+    @Query("SELECT categoryId, COUNT(*) AS totalCount, SUM(isDone) AS doneCount FROM tasks GROUP BY categoryId")
+    LiveData<List<CategoryCount>> getCategoryCounts();
+
+    // Nearest pending reminder after `after`: one seek on index_tasks_isDone_reminderAt
+    @Query("SELECT * FROM tasks WHERE isDone = 0 AND reminderAt > :after ORDER BY reminderAt ASC LIMIT 1")
+    Task getNextReminder(long after);
+
+    @Query("SELECT * FROM tasks WHERE isDone = 0 AND reminderAt BETWEEN :from AND :to ORDER BY reminderAt ASC")
+    List<Task> getRemindersBetween(long from, long to);
+
+    // One pass over the covering index_tasks_isDone_categoryId_dueTimestamp; the bare id column
+    // comes from the row holding MIN(dueTimestamp), so only that task's name is looked up
+    @Query("SELECT g.categoryId AS categoryId, categories.name AS categoryName, g.openCount AS openCount, " +
+            "g.earliestDue AS earliestDue, tasks.name AS earliestDueName " +
+            "FROM (SELECT categoryId, COUNT(*) AS openCount, MIN(dueTimestamp) AS earliestDue, id AS earliestDueId " +
+            "FROM tasks WHERE isDone = 0 GROUP BY categoryId) AS g " +
+            "JOIN categories ON categories.id = g.categoryId " +
+            "LEFT JOIN tasks ON tasks.id = g.earliestDueId AND g.earliestDue IS NOT NULL")
+    List<CategorySummary> getOpenTaskSummary();
+
+    // Streamed by TaskExporter; a cursor keeps only one window of rows in memory
+    @Query("SELECT categories.name AS categoryName, tasks.name AS name, tasks.isDone AS isDone, " +
+            "tasks.timestampCreated AS timestampCreated, tasks.timestampDone AS timestampDone, " +
+            "tasks.dueTimestamp AS dueTimestamp, tasks.reminderOffset AS reminderOffset " +
+            "FROM tasks JOIN categories ON categories.id = tasks.categoryId ORDER BY tasks.id")
+    Cursor exportCursor();
+
+    // Set-based bulk edits, one statement per chunk of ids (see TaskRepository.BULK_CHUNK_SIZE).
+    // Rows already in the target state are not written, so they are not logged either.
+    @Query("UPDATE tasks SET isDone = :done, timestampDone = :timestampDone WHERE id IN (:ids) AND isDone != :done")
+    int setDone(List<Integer> ids, boolean done, long timestampDone);
+
+    @Query("UPDATE tasks SET categoryId = :categoryId WHERE id IN (:ids) AND categoryId != :categoryId")
+    int moveToCategory(List<Integer> ids, int categoryId);
+
+    @Query("DELETE FROM tasks WHERE id IN (:ids)")
+    int deleteByIds(List<Integer> ids);
+
+    // Deletes at most `limit` rows so the write lock is released between chunks
+    @Query("DELETE FROM tasks WHERE id IN (SELECT id FROM tasks WHERE isDone = 1 AND timestampDone < :cutoffTimestamp LIMIT :limit)")
+    int deleteOldCompletedTasks(long cutoffTimestamp, int limit);
 }
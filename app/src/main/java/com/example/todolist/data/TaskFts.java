@@ -0,0 +1,11 @@
+package com.example.todolist.data;
+
+import androidx.room.Entity;
+import androidx.room.Fts4;
+
+// Full-text index over Task.name, kept in sync with `tasks` by Room's content triggers
+@Fts4(contentEntity = Task.class, prefix = {2, 3})
+@Entity(tableName = "tasks_fts")
+public class TaskFts {
+    public String name;
+}
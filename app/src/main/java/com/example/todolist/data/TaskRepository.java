@@ -4,48 +4,197 @@ import android.app.Application;
 
 import androidx.lifecycle.LiveData;
 
+import com.example.todolist.backup.BackupFormat;
+import com.example.todolist.backup.ProgressListener;
+import com.example.todolist.backup.TaskExporter;
+import com.example.todolist.backup.TaskImporter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
 
 public class TaskRepository {
+    // Ids bound per bulk statement, under SQLite's default limit of 999 parameters
+    static final int BULK_CHUNK_SIZE = 900;
+
+    private AppDatabase mDatabase;
     private TaskDao mTaskDao;
     private CategoryDao mCategoryDao;
-    private LiveData<List<Task>> mAllTasks;
+    private TaskWriteQueue mWriteQueue;
+    private TaskCache mCache;
     private LiveData<List<Category>> mAllCategories;
+    private LiveData<List<CategoryCount>> mCategoryCounts;
 
     public TaskRepository(Application application) {
         AppDatabase db = AppDatabase.getDatabase(application);
+        mDatabase = db;
         mTaskDao = db.taskDao();
         mCategoryDao = db.categoryDao();
-        mAllTasks = mTaskDao.getAllTasks();
+        mWriteQueue = TaskWriteQueue.getInstance(application);
+        mCache = TaskCache.getInstance(application);
+        // Applies writes that bypass this repository to the cache
+        ChangeLogFollower.getInstance(application);
         mAllCategories = mCategoryDao.getAllCategories();
-    }
-
-    public LiveData<List<Task>> getAllTasks() {
-        return mAllTasks;
+        mCategoryCounts = mTaskDao.getCategoryCounts();
     }
 
     public LiveData<List<Category>> getAllCategories() {
         return mAllCategories;
     }
 
-    public void insert(Task task) {
-        AppDatabase.databaseWriteExecutor.execute(() -> {
-            mTaskDao.insert(task);
-        });
+    // Re-run by Room after every task write; one aggregate row per non-empty category
+    public LiveData<List<CategoryCount>> getCategoryCounts() {
+        return mCategoryCounts;
     }
 
-    public void update(Task task) {
-        AppDatabase.databaseWriteExecutor.execute(() -> {
-            mTaskDao.update(task);
+    // Row-level changes of one category, see TaskCache.CategoryListener
+    public void addCategoryListener(int categoryId, TaskCache.CategoryListener listener) {
+        mCache.addListener(categoryId, listener);
+    }
+
+    public void removeCategoryListener(int categoryId, TaskCache.CategoryListener listener) {
+        mCache.removeListener(categoryId, listener);
+    }
+
+    // Blocking, call from a background thread
+    public List<Task> searchTasks(String text, int limit) {
+        return mTaskDao.searchByPrefix(text, limit);
+    }
+
+    // Blocking, call from a background thread; rows are streamed from a cursor
+    public long exportTasks(OutputStream out, BackupFormat format, ProgressListener listener) throws IOException {
+        return new TaskExporter(mDatabase).export(out, format, listener);
+    }
+
+    // Blocking, call from a background thread. Imports bypass the write queue, the
+    // imported rows reach the cache through ChangeLogFollower.
+    public long importTasks(InputStream in, long totalBytes, ProgressListener listener) throws IOException {
+        return new TaskImporter(mDatabase).importFrom(in, totalBytes, listener);
+    }
+
+    // Task writes are batched, the returned future completes once persisted.
+    // The cache is updated first; inserts only once the id is known. If the
+    // write fails the future completes exceptionally and the cache is restored.
+    public CompletableFuture<Void> insert(Task task) {
+        return mWriteQueue.insert(task).handle((result, error) -> {
+            if (error == null) {
+                mCache.put(task);
+            } else if (!(unwrap(error) instanceof CancellationException)) {
+                throw new CompletionException(unwrap(error));
+            }
+            // Cancelled: deleted before it was written, so there is nothing to cache
+            return null;
         });
     }
 
-    public void delete(Task task) {
-        AppDatabase.databaseWriteExecutor.execute(() -> {
-            mTaskDao.delete(task);
+    public CompletableFuture<Void> update(Task task) {
+        mCache.put(task);
+        return restoreOnFailure(mWriteQueue.update(task), Collections.singletonList(task.id));
+    }
+
+    public CompletableFuture<Void> delete(Task task) {
+        mCache.remove(task);
+        return restoreOnFailure(mWriteQueue.delete(task), Collections.singletonList(task.id));
+    }
+
+    // Bulk edits of selected tasks. The cache is updated first, then the rows are
+    // written with one set-based statement per chunk of ids, each its own transaction.
+    public CompletableFuture<Void> setDone(List<Task> tasks, boolean done) {
+        long timestampDone = done ? System.currentTimeMillis() : 0;
+        List<Task> updated = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            if (task.isDone == done) continue; // Keeps its timestampDone, as in TaskDao.setDone
+            Task copy = task.copy();
+            copy.isDone = done;
+            copy.timestampDone = timestampDone;
+            updated.add(copy);
+        }
+        mCache.putAll(updated);
+        List<Integer> ids = idsOf(updated);
+        return restoreOnFailure(writeBulk(ids, chunk -> mTaskDao.setDone(chunk, done, timestampDone)), ids);
+    }
+
+    public CompletableFuture<Void> moveToCategory(List<Task> tasks, int categoryId) {
+        List<Task> moved = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            if (task.categoryId == categoryId) continue;
+            Task copy = task.copy();
+            copy.categoryId = categoryId;
+            moved.add(copy);
+        }
+        mCache.putAll(moved);
+        List<Integer> ids = idsOf(moved);
+        return restoreOnFailure(writeBulk(ids, chunk -> mTaskDao.moveToCategory(chunk, categoryId)), ids);
+    }
+
+    public CompletableFuture<Void> deleteAll(List<Task> tasks) {
+        mCache.removeAll(tasks);
+        List<Integer> ids = idsOf(tasks);
+        return restoreOnFailure(writeBulk(ids, mTaskDao::deleteByIds), ids);
+    }
+
+    // Each chunk is queued on the writer lane only once the previous one committed, so
+    // writes submitted meanwhile run in between instead of waiting for the whole edit.
+    // A failed chunk skips the rest; restoreOnFailure re-reads what did commit.
+    private CompletableFuture<Void> writeBulk(List<Integer> ids, Consumer<List<Integer>> statement) {
+        // Queued single-task writes go first, they run on the same writer lane
+        mWriteQueue.flush();
+        CompletableFuture<Void> write = CompletableFuture.completedFuture(null);
+        for (int i = 0; i < ids.size(); i += BULK_CHUNK_SIZE) {
+            List<Integer> chunk = ids.subList(i, Math.min(i + BULK_CHUNK_SIZE, ids.size()));
+            write = write.thenRunAsync(() -> statement.accept(chunk), AppDatabase.databaseWriteExecutor);
+        }
+        return write;
+    }
+
+    // A failed write leaves the cache ahead of the database, and a rolled back
+    // write never reaches the change log, so the stored rows are put back here
+    private CompletableFuture<Void> restoreOnFailure(CompletableFuture<Void> write, List<Integer> ids) {
+        return write.whenComplete((result, error) -> {
+            if (error != null) {
+                DatabaseExecutors.reader().execute(() -> restore(ids));
+            }
         });
     }
 
+    private void restore(List<Integer> ids) {
+        List<Integer> settled = new ArrayList<>(ids.size());
+        for (int id : ids) {
+            // A newer write of the same task is already in the cache
+            if (!mWriteQueue.isPending(id)) {
+                settled.add(id);
+            }
+        }
+        List<Task> stored = new ArrayList<>(settled.size());
+        for (int i = 0; i < settled.size(); i += BULK_CHUNK_SIZE) {
+            stored.addAll(mTaskDao.getTasksByIds(settled.subList(i, Math.min(i + BULK_CHUNK_SIZE, settled.size()))));
+        }
+        Set<Integer> missing = new HashSet<>(settled);
+        missing.removeAll(idsOf(stored));
+        mCache.applyChanges(stored, new ArrayList<>(missing));
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    private static List<Integer> idsOf(List<Task> tasks) {
+        List<Integer> ids = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            ids.add(task.id);
+        }
+        return ids;
+    }
+
     public void insertCategory(Category category) {
         AppDatabase.databaseWriteExecutor.execute(() -> {
             mCategoryDao.insert(category);
@@ -59,15 +208,9 @@ public class TaskRepository {
     }
 
     public void deleteCategory(Category category) {
+        mCache.removeCategory(category.id);
         AppDatabase.databaseWriteExecutor.execute(() -> {
             mCategoryDao.delete(category);
         });
     }
-
-    public void deleteOldCompletedTasks() {
-        long cutoff = System.currentTimeMillis() - (24 * 60 * 60 * 1000); // 24 hours ago
-        AppDatabase.databaseWriteExecutor.execute(() -> {
-            mTaskDao.deleteOldCompletedTasks(cutoff);
-        });
-    }
 }
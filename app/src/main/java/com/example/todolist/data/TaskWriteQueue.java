@@ -0,0 +1,287 @@
+package com.example.todolist.data;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind queue for task mutations. Writes are collected for a short window
+ * (or until the batch is full) and applied in a single transaction. If that
+ * transaction fails, the batch is retried row by row so only the rows that fail
+ * on their own complete exceptionally.
+ */
+public class TaskWriteQueue {
+    private static final String TAG = "TaskWriteQueue";
+
+    private static final long FLUSH_WINDOW_MS = 50;
+    private static final int MAX_BATCH_SIZE = 200;
+
+    private static volatile TaskWriteQueue INSTANCE;
+
+    private final AppDatabase mDatabase;
+    private final TaskDao mTaskDao;
+    private final ScheduledExecutorService mTimer = Executors.newSingleThreadScheduledExecutor();
+
+    // Guarded by this
+    private List<PendingWrite> mInserts = new ArrayList<>();
+    private Map<Integer, PendingWrite> mUpdates = new LinkedHashMap<>();
+    private Map<Integer, PendingWrite> mDeletes = new LinkedHashMap<>();
+    private ScheduledFuture<?> mScheduledFlush;
+    // Updated or deleted ids of the batches being written
+    private final Set<Integer> mInFlight = new HashSet<>();
+
+    private static class PendingWrite {
+        Task task;
+        // The first one belongs to the write that created this entry
+        final List<CompletableFuture<Void>> futures = new ArrayList<>();
+
+        PendingWrite(Task task, CompletableFuture<Void> future) {
+            this.task = task;
+            futures.add(future);
+        }
+    }
+
+    public static TaskWriteQueue getInstance(final Context context) {
+        if (INSTANCE == null) {
+            synchronized (TaskWriteQueue.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new TaskWriteQueue(AppDatabase.getDatabase(context));
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    // Package-private for tests, the app uses getInstance
+    TaskWriteQueue(AppDatabase database) {
+        mDatabase = database;
+        mTaskDao = database.taskDao();
+    }
+
+    // Completes once the task is persisted, with task.id assigned. Cancelled if the
+    // task is deleted before its batch is written.
+    public CompletableFuture<Void> insert(Task task) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        synchronized (this) {
+            mInserts.add(new PendingWrite(task, future));
+            onEnqueued();
+        }
+        return future;
+    }
+
+    public CompletableFuture<Void> update(Task task) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        synchronized (this) {
+            PendingWrite pendingInsert = findPendingInsert(task);
+            PendingWrite pendingDelete = mDeletes.get(task.id);
+            PendingWrite pendingUpdate = mUpdates.get(task.id);
+            if (pendingInsert != null) {
+                // Insert has not run yet and will write the current state
+                pendingInsert.futures.add(future);
+            } else if (pendingDelete != null) {
+                // Row is going away anyway
+                pendingDelete.futures.add(future);
+            } else if (pendingUpdate != null) {
+                // Later state of the same task wins
+                pendingUpdate.task = task;
+                pendingUpdate.futures.add(future);
+            } else {
+                mUpdates.put(task.id, new PendingWrite(task, future));
+            }
+            onEnqueued();
+        }
+        return future;
+    }
+
+    public CompletableFuture<Void> delete(Task task) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        synchronized (this) {
+            PendingWrite pendingInsert = findPendingInsert(task);
+            if (pendingInsert != null) {
+                // Never reached the database, so the task never got an id: the insert
+                // is cancelled, updates merged into it and this delete are done
+                mInserts.remove(pendingInsert);
+                pendingInsert.futures.get(0).cancel(false);
+                pendingInsert.futures.add(future);
+                for (CompletableFuture<Void> f : pendingInsert.futures) {
+                    f.complete(null);
+                }
+                return future;
+            }
+
+            PendingWrite pendingDelete = mDeletes.get(task.id);
+            if (pendingDelete != null) {
+                pendingDelete.futures.add(future);
+            } else {
+                PendingWrite write = new PendingWrite(task, future);
+                PendingWrite pendingUpdate = mUpdates.remove(task.id);
+                if (pendingUpdate != null) {
+                    write.futures.addAll(pendingUpdate.futures);
+                }
+                mDeletes.put(task.id, write);
+            }
+            onEnqueued();
+        }
+        return future;
+    }
+
+    // Applies everything queued so far without waiting for the window
+    public void flush() {
+        synchronized (this) {
+            if (mScheduledFlush != null) {
+                mScheduledFlush.cancel(false);
+                mScheduledFlush = null;
+            }
+            drain();
+        }
+    }
+
+    // True while an update or delete of the task is queued or being written, so
+    // readers of the change log do not overwrite the newer in-memory state
+    public synchronized boolean isPending(int taskId) {
+        return mUpdates.containsKey(taskId) || mDeletes.containsKey(taskId) || mInFlight.contains(taskId);
+    }
+
+    private PendingWrite findPendingInsert(Task task) {
+        for (PendingWrite write : mInserts) {
+            if (write.task == task) {
+                return write;
+            }
+        }
+        return null;
+    }
+
+    // Called with the lock held
+    private void onEnqueued() {
+        int size = mInserts.size() + mUpdates.size() + mDeletes.size();
+        if (size >= MAX_BATCH_SIZE) {
+            if (mScheduledFlush != null) {
+                mScheduledFlush.cancel(false);
+                mScheduledFlush = null;
+            }
+            drain();
+        } else if (mScheduledFlush == null) {
+            mScheduledFlush = mTimer.schedule(this::flush, FLUSH_WINDOW_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Called with the lock held
+    private void drain() {
+        if (mInserts.isEmpty() && mUpdates.isEmpty() && mDeletes.isEmpty()) {
+            return;
+        }
+        final List<PendingWrite> inserts = mInserts;
+        final List<PendingWrite> updates = new ArrayList<>(mUpdates.values());
+        final List<PendingWrite> deletes = new ArrayList<>(mDeletes.values());
+        mInserts = new ArrayList<>();
+        mUpdates = new LinkedHashMap<>();
+        mDeletes = new LinkedHashMap<>();
+        mInFlight.addAll(idsOf(updates));
+        mInFlight.addAll(idsOf(deletes));
+
+        AppDatabase.databaseWriteExecutor.execute(() -> apply(inserts, updates, deletes));
+    }
+
+    private void apply(List<PendingWrite> inserts, List<PendingWrite> updates, List<PendingWrite> deletes) {
+        try {
+            // Ids are assigned only once the transaction commits, a rollback discards them
+            List<Long> ids = mDatabase.runInTransaction(() -> {
+                List<Long> insertedIds = inserts.isEmpty()
+                        ? Collections.emptyList() : mTaskDao.insertAll(tasksOf(inserts));
+                if (!updates.isEmpty()) {
+                    mTaskDao.updateAll(tasksOf(updates));
+                }
+                if (!deletes.isEmpty()) {
+                    mTaskDao.deleteAll(tasksOf(deletes));
+                }
+                return insertedIds;
+            });
+            for (int i = 0; i < ids.size(); i++) {
+                inserts.get(i).task.id = ids.get(i).intValue();
+            }
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Batch write failed, retrying row by row", e);
+            applyEach(inserts, updates, deletes);
+            return;
+        }
+        landed(updates, deletes);
+        complete(inserts, null);
+        complete(updates, null);
+        complete(deletes, null);
+    }
+
+    // One statement per row, so a bad row fails alone
+    private void applyEach(List<PendingWrite> inserts, List<PendingWrite> updates, List<PendingWrite> deletes) {
+        for (PendingWrite write : inserts) {
+            applyOne(write, () -> write.task.id =
+                    mTaskDao.insertAll(Collections.singletonList(write.task)).get(0).intValue());
+        }
+        for (PendingWrite write : updates) {
+            applyOne(write, () -> mTaskDao.update(write.task));
+        }
+        for (PendingWrite write : deletes) {
+            applyOne(write, () -> mTaskDao.delete(write.task));
+        }
+        landed(updates, deletes);
+    }
+
+    private static void applyOne(PendingWrite write, Runnable statement) {
+        try {
+            statement.run();
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Could not write task " + write.task.id, e);
+            complete(write, e);
+            return;
+        }
+        complete(write, null);
+    }
+
+    private synchronized void landed(List<PendingWrite> updates, List<PendingWrite> deletes) {
+        mInFlight.removeAll(idsOf(updates));
+        mInFlight.removeAll(idsOf(deletes));
+    }
+
+    private static List<Integer> idsOf(List<PendingWrite> writes) {
+        List<Integer> ids = new ArrayList<>(writes.size());
+        for (PendingWrite write : writes) {
+            ids.add(write.task.id);
+        }
+        return ids;
+    }
+
+    private static List<Task> tasksOf(List<PendingWrite> writes) {
+        List<Task> tasks = new ArrayList<>(writes.size());
+        for (PendingWrite write : writes) {
+            tasks.add(write.task);
+        }
+        return tasks;
+    }
+
+    private static void complete(List<PendingWrite> writes, Throwable error) {
+        for (PendingWrite write : writes) {
+            complete(write, error);
+        }
+    }
+
+    private static void complete(PendingWrite write, Throwable error) {
+        for (CompletableFuture<Void> future : write.futures) {
+            if (error == null) {
+                future.complete(null);
+            } else {
+                future.completeExceptionally(error);
+            }
+        }
+    }
+}
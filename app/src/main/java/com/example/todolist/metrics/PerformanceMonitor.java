@@ -0,0 +1,77 @@
+package com.example.todolist.metrics;
+
+import android.view.View;
+
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+/**
+ * Entry points for debug performance tracking. Screens describe what is on screen
+ * (fragment, list size, scrolling) and the installed Tracker counts frames under
+ * those states. Only debug builds install one (JankTracker in src/debug), so the
+ * JankStats dependency does not ship in release builds and every call here is a
+ * no-op there.
+ */
+public final class PerformanceMonitor {
+
+    public interface Tracker {
+        void setFragment(View view, String name);
+        void setListSize(View view, int size);
+        void trackList(RecyclerView list);
+        // Frame summary, without the extra sections
+        String report();
+    }
+
+    private static volatile Tracker sTracker;
+
+    // Extra report lines from other components, such as cache statistics
+    private static final List<Supplier<String>> sReportSections = new CopyOnWriteArrayList<>();
+
+    private PerformanceMonitor() {
+    }
+
+    // Call once, before anything registers report sections
+    public static void install(Tracker tracker) {
+        sTracker = tracker;
+    }
+
+    public static boolean isInstalled() {
+        return sTracker != null;
+    }
+
+    // Appended to every report; ignored unless installed
+    public static void addReportSection(Supplier<String> section) {
+        if (sTracker == null) return;
+        sReportSections.add(section);
+    }
+
+    public static void setFragment(View view, String name) {
+        Tracker tracker = sTracker;
+        if (tracker != null) tracker.setFragment(view, name);
+    }
+
+    public static void setListSize(View view, int size) {
+        Tracker tracker = sTracker;
+        if (tracker != null) tracker.setListSize(view, size);
+    }
+
+    public static void trackList(RecyclerView list) {
+        Tracker tracker = sTracker;
+        if (tracker != null) tracker.trackList(list);
+    }
+
+    // Empty unless installed
+    public static String report() {
+        Tracker tracker = sTracker;
+        if (tracker == null) return "";
+        StringBuilder sb = new StringBuilder(tracker.report());
+        for (Supplier<String> section : sReportSections) {
+            sb.append(String.format(Locale.US, "%n%s", section.get()));
+        }
+        return sb.toString();
+    }
+}
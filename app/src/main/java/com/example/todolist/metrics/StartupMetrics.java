@@ -0,0 +1,127 @@
+package com.example.todolist.metrics;
+
+import android.app.Activity;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+import android.view.View;
+import android.view.ViewTreeObserver;
+
+import androidx.tracing.Trace;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Cold start phases as androidx.tracing sections (visible in Perfetto and to
+ * StartupBenchmark) plus an in-process record of their durations. The summary is
+ * logged once the task list is fully drawn.
+ */
+public final class StartupMetrics {
+    private static final String TAG = "StartupMetrics";
+
+    public static final String SECTION_DATABASE_OPEN = "AppDatabase.open";
+    public static final String SECTION_DATABASE_SEED = "AppDatabase.seed";
+    public static final String SECTION_ALARM_STORE_LOAD = "AlarmStore.load";
+    public static final String SECTION_TASKS_INFLATE = "TasksFragment.inflate";
+    public static final String SECTION_SETTINGS_INFLATE = "SettingsFragment.inflate";
+
+    private static final int DATABASE_OPEN_COOKIE = 1;
+
+    // Guarded by StartupMetrics.class, in insertion order
+    private static final Map<String, Long> sDurations = new LinkedHashMap<>();
+    private static long sDatabaseOpenStart = -1;
+    private static long sFirstFrameMs = -1;
+    private static long sFullyDrawnMs = -1;
+
+    private StartupMetrics() {
+    }
+
+    public static void trace(String section, Runnable block) {
+        trace(section, () -> {
+            block.run();
+            return null;
+        });
+    }
+
+    public static <T> T trace(String section, Supplier<T> block) {
+        long start = SystemClock.uptimeMillis();
+        Trace.beginSection(section);
+        try {
+            return block.get();
+        } finally {
+            Trace.endSection();
+            record(section, SystemClock.uptimeMillis() - start);
+        }
+    }
+
+    // Room opens the database lazily on a query thread, so this spans threads
+    public static synchronized void beginDatabaseOpen() {
+        if (sDatabaseOpenStart < 0) {
+            sDatabaseOpenStart = SystemClock.uptimeMillis();
+            Trace.beginAsyncSection(SECTION_DATABASE_OPEN, DATABASE_OPEN_COOKIE);
+        }
+    }
+
+    public static synchronized void endDatabaseOpen() {
+        if (sDatabaseOpenStart >= 0 && !sDurations.containsKey(SECTION_DATABASE_OPEN)) {
+            Trace.endAsyncSection(SECTION_DATABASE_OPEN, DATABASE_OPEN_COOKIE);
+            sDurations.put(SECTION_DATABASE_OPEN, SystemClock.uptimeMillis() - sDatabaseOpenStart);
+        }
+    }
+
+    // Records the time from process start to the first drawn frame of the activity
+    public static void watchFirstFrame(Activity activity) {
+        View decor = activity.getWindow().getDecorView();
+        decor.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                decor.getViewTreeObserver().removeOnPreDrawListener(this);
+                synchronized (StartupMetrics.class) {
+                    if (sFirstFrameMs < 0) {
+                        sFirstFrameMs = sinceProcessStart();
+                    }
+                }
+                return true;
+            }
+        });
+    }
+
+    // Call once the live task list is on screen; only the first call per process counts
+    public static void reportFullyDrawn(Activity activity) {
+        synchronized (StartupMetrics.class) {
+            if (sFullyDrawnMs >= 0) {
+                return;
+            }
+            sFullyDrawnMs = sinceProcessStart();
+        }
+        activity.reportFullyDrawn();
+        Log.i(TAG, summary());
+    }
+
+    public static synchronized Map<String, Long> getDurations() {
+        return new LinkedHashMap<>(sDurations);
+    }
+
+    public static synchronized long getFirstFrameMillis() { return sFirstFrameMs; }
+    public static synchronized long getFullyDrawnMillis() { return sFullyDrawnMs; }
+
+    public static synchronized String summary() {
+        StringBuilder sb = new StringBuilder("firstFrameMs=").append(sFirstFrameMs)
+                .append(", fullyDrawnMs=").append(sFullyDrawnMs);
+        for (Map.Entry<String, Long> e : sDurations.entrySet()) {
+            sb.append(", ").append(e.getKey()).append("Ms=").append(e.getValue());
+        }
+        return sb.toString();
+    }
+
+    // First occurrence wins, later calls of the same section are not startup
+    private static synchronized void record(String section, long durationMs) {
+        sDurations.putIfAbsent(section, durationMs);
+    }
+
+    private static long sinceProcessStart() {
+        return SystemClock.uptimeMillis() - Process.getStartUptimeMillis();
+    }
+}
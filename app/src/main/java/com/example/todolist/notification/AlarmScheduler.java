@@ -6,43 +6,83 @@ import android.content.Context;
 import android.content.Intent;
 import android.util.Log;
 
+import com.example.todolist.data.NotificationTime;
+
+import java.util.Arrays;
 import java.util.Calendar;
+import java.util.List;
 
+/**
+ * Keeps a single AlarmManager registration for all reminder slots: only the next due
+ * slot is armed. When it fires, NotificationReceiver handles every slot due within
+ * TOLERANCE_MS and arms the following one. Task due reminders get a second, separate
+ * registration for the nearest pending reminder (see DueReminderEngine).
+ */
 public class AlarmScheduler {
+    public static final String ACTION_DAILY_REMINDER = "com.example.todolist.action.DAILY_REMINDER";
+    public static final String ACTION_DUE_REMINDER = "com.example.todolist.action.DUE_REMINDER";
+    public static final String EXTRA_TRIGGER_AT = "triggerAt";
 
-    public static void scheduleAlarm(Context context, int hour, int minute, int requestCode) {
-        AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
-        Intent intent = new Intent(context, NotificationReceiver.class);
-        intent.putExtra("hour", hour);
-        intent.putExtra("minute", minute);
-        intent.putExtra("requestCode", requestCode);
-        
-        PendingIntent pendingIntent = PendingIntent.getBroadcast(context, requestCode, intent,
-                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
+    // Slots this close together share one wakeup
+    public static final long TOLERANCE_MS = 5 * 60 * 1000;
 
-        Calendar calendar = Calendar.getInstance();
-        calendar.set(Calendar.HOUR_OF_DAY, hour);
-        calendar.set(Calendar.MINUTE, minute);
-        calendar.set(Calendar.SECOND, 0);
+    // Outside the 0..1439 range used by the old per-slot alarms
+    private static final int NEXT_ALARM_REQUEST_CODE = 24 * 60;
+    private static final int DUE_REMINDER_REQUEST_CODE = 24 * 60 + 1;
 
-        if (calendar.getTimeInMillis() <= System.currentTimeMillis()) {
-            calendar.add(Calendar.DAY_OF_YEAR, 1);
+    // Arms the next slot after `afterMillis`, or cancels the alarm when nothing is enabled
+    public static void scheduleNext(Context context, List<NotificationTime> enabled, long afterMillis) {
+        int[] timeline = toTimeline(enabled);
+        if (timeline.length == 0) {
+            cancelNext(context);
+            return;
         }
 
-        if (alarmManager != null) {
-            try {
-                // setExactAndAllowWhileIdle ensures it fires even in Doze mode
-                alarmManager.setExactAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, calendar.getTimeInMillis(), pendingIntent);
-                Log.d("AlarmScheduler", "Scheduled exact alarm for " + hour + ":" + minute);
-            } catch (SecurityException e) {
-                Log.e("AlarmScheduler", "Permission missing for exact alarm", e);
+        long triggerAt = nextTriggerAfter(afterMillis, timeline);
+        arm(context, ACTION_DAILY_REMINDER, NEXT_ALARM_REQUEST_CODE, triggerAt);
+        Log.d("AlarmScheduler", "Armed next reminder of " + timeline.length + " slots at " + triggerAt);
+    }
+
+    public static void scheduleNext(Context context, List<NotificationTime> enabled) {
+        scheduleNext(context, enabled, System.currentTimeMillis());
+    }
+
+    public static void cancelNext(Context context) {
+        cancelAlarm(context, NEXT_ALARM_REQUEST_CODE);
+    }
+
+    public static void scheduleDueReminder(Context context, long triggerAt) {
+        arm(context, ACTION_DUE_REMINDER, DUE_REMINDER_REQUEST_CODE, triggerAt);
+        Log.d("AlarmScheduler", "Armed due reminder at " + triggerAt);
+    }
+
+    public static void cancelDueReminder(Context context) {
+        cancelAlarm(context, DUE_REMINDER_REQUEST_CODE);
+    }
+
+    // Number of slots that fell due in [fromMillis, toMillis]
+    public static int countDue(List<NotificationTime> enabled, long fromMillis, long toMillis) {
+        int due = 0;
+        for (int minuteOfDay : toTimeline(enabled)) {
+            long occurrence = atMinuteOfDay(toMillis, minuteOfDay, 0);
+            if (occurrence > toMillis) {
+                occurrence = atMinuteOfDay(toMillis, minuteOfDay, -1);
+            }
+            if (occurrence >= fromMillis) {
+                due++;
             }
         }
+        return due;
     }
 
     public static void cancelAlarm(Context context, int requestCode) {
         AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
         Intent intent = new Intent(context, NotificationReceiver.class);
+        if (requestCode == NEXT_ALARM_REQUEST_CODE) {
+            intent.setAction(ACTION_DAILY_REMINDER);
+        } else if (requestCode == DUE_REMINDER_REQUEST_CODE) {
+            intent.setAction(ACTION_DUE_REMINDER);
+        }
         PendingIntent pendingIntent = PendingIntent.getBroadcast(context, requestCode, intent,
                 PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
 
@@ -51,4 +91,63 @@ public class AlarmScheduler {
             Log.d("AlarmScheduler", "Canceled alarm with request code " + requestCode);
         }
     }
+
+    private static void arm(Context context, String action, int requestCode, long triggerAt) {
+        AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+        Intent intent = new Intent(context, NotificationReceiver.class);
+        intent.setAction(action);
+        intent.putExtra(EXTRA_TRIGGER_AT, triggerAt);
+
+        PendingIntent pendingIntent = PendingIntent.getBroadcast(context, requestCode, intent,
+                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
+
+        if (alarmManager != null) {
+            try {
+                // setExactAndAllowWhileIdle ensures it fires even in Doze mode
+                alarmManager.setExactAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, triggerAt, pendingIntent);
+            } catch (SecurityException e) {
+                Log.e("AlarmScheduler", "Permission missing for exact alarm", e);
+            }
+        }
+    }
+
+    // Sorted minutes of the day
+    private static int[] toTimeline(List<NotificationTime> enabled) {
+        int[] timeline = new int[enabled.size()];
+        int count = 0;
+        for (NotificationTime time : enabled) {
+            if (time.isEnabled) {
+                timeline[count++] = time.getRequestCode();
+            }
+        }
+        timeline = Arrays.copyOf(timeline, count);
+        Arrays.sort(timeline);
+        return timeline;
+    }
+
+    // First slot strictly after the minute containing afterMillis, wrapping to tomorrow
+    private static long nextTriggerAfter(long afterMillis, int[] timeline) {
+        Calendar now = Calendar.getInstance();
+        now.setTimeInMillis(afterMillis);
+        int currentMinute = now.get(Calendar.HOUR_OF_DAY) * 60 + now.get(Calendar.MINUTE);
+
+        int index = Arrays.binarySearch(timeline, currentMinute);
+        index = index >= 0 ? index + 1 : -index - 1;
+        if (index < timeline.length) {
+            return atMinuteOfDay(afterMillis, timeline[index], 0);
+        }
+        return atMinuteOfDay(afterMillis, timeline[0], 1);
+    }
+
+    // Calendar days, not 24 hour steps, so days with a DST shift keep the wall-clock time
+    private static long atMinuteOfDay(long dayMillis, int minuteOfDay, int dayOffset) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(dayMillis);
+        calendar.add(Calendar.DAY_OF_YEAR, dayOffset);
+        calendar.set(Calendar.HOUR_OF_DAY, minuteOfDay / 60);
+        calendar.set(Calendar.MINUTE, minuteOfDay % 60);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        return calendar.getTimeInMillis();
+    }
 }
@@ -0,0 +1,150 @@
+package com.example.todolist.notification;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import androidx.lifecycle.LiveData;
+
+import com.example.todolist.data.AppDatabase;
+import com.example.todolist.data.DatabaseExecutors;
+import com.example.todolist.data.NotificationTime;
+import com.example.todolist.data.NotificationTimeDao;
+import com.example.todolist.metrics.StartupMetrics;
+
+import org.json.JSONException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Single source of truth for reminder slots, shared by the settings screen and the
+ * receivers. Slots live in the notification_times table; the old JSON blob in
+ * SharedPreferences is imported once and then removed.
+ */
+public class AlarmStore {
+    private static final String TAG = "AlarmStore";
+
+    private static final String PREFS_NAME = "ToDoPrefs";
+    private static final String KEY_LEGACY_NOTIFICATIONS = "custom_notifications";
+    private static final String KEY_LEGACY_BOOT_NOTIFICATIONS = "notification_times";
+    private static final String KEY_MIGRATED = "alarm_store_migrated";
+    private static final String KEY_COALESCED = "alarm_store_coalesced";
+
+    private static volatile AlarmStore INSTANCE;
+
+    private final Context mContext;
+    private final NotificationTimeDao mDao;
+    // The one-time import, run on the writer lane; created on first use
+    private CompletableFuture<Void> mMigration;
+
+    public static AlarmStore getInstance(final Context context) {
+        if (INSTANCE == null) {
+            synchronized (AlarmStore.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new AlarmStore(context.getApplicationContext());
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    private AlarmStore(Context context) {
+        mContext = context;
+        mDao = AppDatabase.getDatabase(context).notificationTimeDao();
+    }
+
+    public LiveData<List<NotificationTime>> getAll() {
+        migrateIfNeeded();
+        return mDao.getAll();
+    }
+
+    // Blocking, for receivers running inside goAsync(); waits for the import, never runs it
+    public List<NotificationTime> getEnabled() {
+        migrateIfNeeded().join();
+        return mDao.getEnabled();
+    }
+
+    public void add(int hour, int minute) {
+        NotificationTime time = new NotificationTime(hour, minute, true);
+        DatabaseExecutors.writer().execute(() -> {
+            mDao.insert(time);
+            reschedule();
+        });
+    }
+
+    public void setEnabled(NotificationTime time, boolean isEnabled) {
+        NotificationTime updated = new NotificationTime(time.hour, time.minute, isEnabled);
+        DatabaseExecutors.writer().execute(() -> {
+            mDao.update(updated);
+            reschedule();
+        });
+    }
+
+    public void delete(NotificationTime time) {
+        NotificationTime deleted = new NotificationTime(time.hour, time.minute, false);
+        DatabaseExecutors.writer().execute(() -> {
+            mDao.delete(deleted);
+            reschedule();
+        });
+    }
+
+    // Re-arms the single coalesced alarm from the current timeline; runs on the writer lane
+    private void reschedule() {
+        AlarmScheduler.scheduleNext(mContext, mDao.getEnabled());
+    }
+
+    // One-time import of the SharedPreferences JSON; seeds the defaults on a fresh install.
+    // Queued on the writer lane like every other write, so the readers only wait for it.
+    private synchronized CompletableFuture<Void> migrateIfNeeded() {
+        if (mMigration == null) {
+            mMigration = CompletableFuture.runAsync(
+                    () -> StartupMetrics.trace(StartupMetrics.SECTION_ALARM_STORE_LOAD, this::migrate),
+                    DatabaseExecutors.writer());
+        }
+        return mMigration;
+    }
+
+    // Runs on the writer lane, so the flags are committed synchronously here
+    private void migrate() {
+        SharedPreferences prefs = mContext.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        if (!prefs.getBoolean(KEY_MIGRATED, false)) {
+            if (mDao.count() == 0) {
+                mDao.insertAll(readLegacyTimes(prefs));
+            }
+            prefs.edit()
+                    .remove(KEY_LEGACY_NOTIFICATIONS)
+                    .remove(KEY_LEGACY_BOOT_NOTIFICATIONS)
+                    .putBoolean(KEY_MIGRATED, true)
+                    .commit();
+        }
+        if (!prefs.getBoolean(KEY_COALESCED, false)) {
+            // Older versions armed one alarm per slot; replace them with the coalesced one
+            List<NotificationTime> enabled = mDao.getEnabled();
+            for (NotificationTime time : enabled) {
+                AlarmScheduler.cancelAlarm(mContext, time.getRequestCode());
+            }
+            AlarmScheduler.scheduleNext(mContext, enabled);
+            prefs.edit().putBoolean(KEY_COALESCED, true).commit();
+        }
+    }
+
+    private static List<NotificationTime> readLegacyTimes(SharedPreferences prefs) {
+        String json = prefs.getString(KEY_LEGACY_NOTIFICATIONS, null);
+        List<NotificationTime> times = new ArrayList<>();
+        if (json != null) {
+            try {
+                times.addAll(NotificationTime.fromJson(json));
+            } catch (JSONException e) {
+                Log.e(TAG, "Dropping unreadable legacy notification times", e);
+            }
+        } else {
+            // Default initial times (as per original request: 9, 12, 18)
+            times.add(new NotificationTime(9, 0, false));
+            times.add(new NotificationTime(12, 0, false));
+            times.add(new NotificationTime(18, 0, false));
+        }
+        return times;
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.todolist.notification;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import com.example.todolist.data.AppDatabase;
+import com.example.todolist.data.DatabaseExecutors;
+import com.example.todolist.data.Task;
+import com.example.todolist.data.TaskDao;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps the due reminder alarm pointed at the nearest pending task reminder. The
+ * lookup is a single seek on index_tasks_isDone_reminderAt, so re-arming after
+ * every task write is cheap. The end of the last delivered window is persisted,
+ * so reminders that fell due while the device was off, or while an alarm was
+ * missed, are delivered by the next fire or boot.
+ */
+public class DueReminderEngine {
+    private static final String PREFS_NAME = "due_reminders";
+    private static final String KEY_DELIVERED_UNTIL = "deliveredUntil";
+
+    private static volatile DueReminderEngine INSTANCE;
+
+    private final Context mContext;
+    private final TaskDao mTaskDao;
+    private final AtomicBoolean mReschedulePending = new AtomicBoolean();
+
+    // Loads the preferences, then runs every read-modify-write of them in order;
+    // the only thread that commits KEY_DELIVERED_UNTIL
+    private final ExecutorService mPrefsExecutor = Executors.newSingleThreadExecutor();
+    private final CompletableFuture<SharedPreferences> mPrefs;
+
+    public static DueReminderEngine getInstance(final Context context) {
+        if (INSTANCE == null) {
+            synchronized (DueReminderEngine.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new DueReminderEngine(context.getApplicationContext());
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    private DueReminderEngine(Context context) {
+        mContext = context;
+        mTaskDao = AppDatabase.getDatabase(context).taskDao();
+        // Created from MainViewModel on the main thread, so the file is read in the background
+        mPrefs = CompletableFuture.supplyAsync(
+                () -> context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE), mPrefsExecutor);
+    }
+
+    // Call after task writes have been persisted; bursts collapse into one lookup
+    public void reschedule() {
+        if (mReschedulePending.compareAndSet(false, true)) {
+            DatabaseExecutors.reader().execute(() -> {
+                mReschedulePending.set(false);
+                armNext(System.currentTimeMillis());
+            });
+        }
+    }
+
+    // Blocking
+    public void armNext(long afterMillis) {
+        mPrefs.thenAcceptAsync(prefs -> {
+            if (!prefs.contains(KEY_DELIVERED_UNTIL)) {
+                // First arm ever, earlier reminders were never due on this install
+                prefs.edit().putLong(KEY_DELIVERED_UNTIL, afterMillis).commit();
+            }
+        }, mPrefsExecutor);
+        Task next = mTaskDao.getNextReminder(afterMillis);
+        if (next == null) {
+            AlarmScheduler.cancelDueReminder(mContext);
+        } else {
+            AlarmScheduler.scheduleDueReminder(mContext, next.reminderAt);
+        }
+    }
+
+    // Blocking; open tasks whose reminder fell in (last delivered, now], each returned once
+    public List<Task> takeDue(long now) {
+        return mPrefs.thenApplyAsync(prefs -> {
+            long deliveredUntil = prefs.getLong(KEY_DELIVERED_UNTIL, now);
+            if (deliveredUntil >= now) {
+                return Collections.<Task>emptyList();
+            }
+            List<Task> due = mTaskDao.getRemindersBetween(deliveredUntil + 1, now);
+            prefs.edit().putLong(KEY_DELIVERED_UNTIL, now).commit();
+            return due;
+        }, mPrefsExecutor).join();
+    }
+}
@@ -9,6 +9,7 @@ import android.content.Context;
 import android.content.Intent;
 import android.content.pm.PackageManager;
 import android.os.Build;
+import android.util.Log;
 
 import androidx.core.app.ActivityCompat;
 import androidx.core.app.NotificationCompat;
@@ -16,12 +17,131 @@ import androidx.core.app.NotificationManagerCompat;
 
 import com.example.todolist.MainActivity;
 import com.example.todolist.R;
+import com.example.todolist.data.AppDatabase;
+import com.example.todolist.data.CategorySummary;
+import com.example.todolist.data.DatabaseExecutors;
+import com.example.todolist.data.NotificationTime;
+import com.example.todolist.data.Task;
+import com.example.todolist.data.TaskDao;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 public class NotificationReceiver extends BroadcastReceiver {
     private static final String CHANNEL_ID = "daily_reminders";
+    private static final int SUMMARY_NOTIFICATION_ID = 1;
+    private static final int DUE_NOTIFICATION_ID_BASE = 1 << 30;
+    private static final long SUMMARY_BUDGET_MS = 2000;
 
     @Override
     public void onReceive(Context context, Intent intent) {
+        final long now = System.currentTimeMillis();
+        final long triggerAt = intent.getLongExtra(AlarmScheduler.EXTRA_TRIGGER_AT, now);
+        final PendingResult result = goAsync();
+        final Context appContext = context.getApplicationContext();
+
+        if (AlarmScheduler.ACTION_DUE_REMINDER.equals(intent.getAction())) {
+            DatabaseExecutors.reader().execute(() -> {
+                try {
+                    DueReminderEngine engine = DueReminderEngine.getInstance(appContext);
+                    for (Task task : engine.takeDue(now)) {
+                        showDueNotification(appContext, task);
+                    }
+                    engine.armNext(now);
+                } finally {
+                    result.finish();
+                }
+            });
+            return;
+        }
+
+        // One wakeup covers every enabled slot due within the tolerance window, then arms the next
+        DatabaseExecutors.reader().execute(() -> {
+            try {
+                List<NotificationTime> enabled = AlarmStore.getInstance(appContext).getEnabled();
+                int due = AlarmScheduler.countDue(enabled,
+                        triggerAt - AlarmScheduler.TOLERANCE_MS, now + AlarmScheduler.TOLERANCE_MS);
+                if (due > 0) {
+                    showSummaryNotification(appContext, now);
+                }
+                AlarmScheduler.scheduleNext(appContext, enabled, now + AlarmScheduler.TOLERANCE_MS);
+                Log.d("NotificationReceiver", "Handled " + due + " due reminder slots");
+            } finally {
+                result.finish();
+            }
+        });
+    }
+
+    // Open counts per category and the most overdue task; repeated reminders replace each other
+    private void showSummaryNotification(Context context, long now) {
+        List<CategorySummary> summary = loadSummary(context);
+        if (summary == null) {
+            post(context, SUMMARY_NOTIFICATION_ID, context.getString(R.string.app_name),
+                    context.getString(R.string.notification_message), null);
+            return;
+        }
+
+        int open = 0;
+        CategorySummary overdue = null;
+        for (CategorySummary category : summary) {
+            open += category.openCount;
+            if (category.earliestDue != null && category.earliestDue < now
+                    && (overdue == null || category.earliestDue < overdue.earliestDue)) {
+                overdue = category;
+            }
+        }
+        if (open == 0) {
+            NotificationManagerCompat.from(context).cancel(SUMMARY_NOTIFICATION_ID);
+            return;
+        }
+
+        summary.sort((a, b) -> Integer.compare(b.openCount, a.openCount));
+        List<String> lines = new ArrayList<>();
+        for (CategorySummary category : summary) {
+            lines.add(context.getString(R.string.notification_category_count,
+                    category.categoryName, category.openCount));
+        }
+        String text = String.join(", ", lines);
+        if (overdue != null) {
+            text = context.getString(R.string.notification_most_overdue, overdue.earliestDueName);
+            lines.add(text);
+        }
+
+        String title = context.getResources().getQuantityString(R.plurals.notification_open_tasks, open, open);
+        post(context, SUMMARY_NOTIFICATION_ID, title, text, String.join("\n", lines));
+    }
+
+    // Runs the aggregate on another reader thread and gives up after SUMMARY_BUDGET_MS,
+    // keeping the receiver well inside its goAsync() deadline. Null means post the
+    // generic reminder.
+    private static List<CategorySummary> loadSummary(Context context) {
+        TaskDao taskDao = AppDatabase.getDatabase(context).taskDao();
+        Future<List<CategorySummary>> future = DatabaseExecutors.reader().submit(taskDao::getOpenTaskSummary);
+        try {
+            return future.get(SUMMARY_BUDGET_MS, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            Log.w("NotificationReceiver", "Task summary over budget, posting the generic reminder");
+            return null;
+        } catch (ExecutionException e) {
+            Log.e("NotificationReceiver", "Task summary failed", e.getCause());
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    // One notification per task, replaced if the same task fires again
+    private void showDueNotification(Context context, Task task) {
+        post(context, DUE_NOTIFICATION_ID_BASE + task.id, context.getString(R.string.app_name), task.name, null);
+    }
+
+    private void post(Context context, int notificationId, String title, String text, String bigText) {
         createNotificationChannel(context);
 
         Intent mainIntent = new Intent(context, MainActivity.class);
@@ -30,28 +150,20 @@ public class NotificationReceiver extends BroadcastReceiver {
 
         NotificationCompat.Builder builder = new NotificationCompat.Builder(context, CHANNEL_ID)
                 .setSmallIcon(R.mipmap.ic_launcher) // Ensure this icon exists
-                .setContentTitle(context.getString(R.string.app_name))
-                .setContentText(context.getString(R.string.notification_message))
+                .setContentTitle(title)
+                .setContentText(text)
                 .setPriority(NotificationCompat.PRIORITY_DEFAULT)
                 .setContentIntent(pendingIntent)
                 .setAutoCancel(true);
+        if (bigText != null) {
+            builder.setStyle(new NotificationCompat.BigTextStyle().bigText(bigText));
+        }
 
         NotificationManagerCompat notificationManager = NotificationManagerCompat.from(context);
 
         if (ActivityCompat.checkSelfPermission(context,
                 Manifest.permission.POST_NOTIFICATIONS) == PackageManager.PERMISSION_GRANTED) {
-            notificationManager.notify((int) System.currentTimeMillis(), builder.build());
-        }
-        
-        // Reschedule next alarm
-        int hour = intent.getIntExtra("hour", -1);
-        int minute = intent.getIntExtra("minute", -1);
-        int requestCode = intent.getIntExtra("requestCode", -1);
-        
-        if (hour != -1 && minute != -1 && requestCode != -1) {
-             // Re-verify if this alarm is still desired (optional but good)
-             // For now, simply rescheduling:
-            AlarmScheduler.scheduleAlarm(context, hour, minute, requestCode);
+            notificationManager.notify(notificationId, builder.build());
         }
     }
 
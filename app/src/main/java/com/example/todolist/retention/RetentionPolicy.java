@@ -0,0 +1,24 @@
+package com.example.todolist.retention;
+
+// How long completed tasks are kept and how the purge is paced; stored by SettingsStore
+public class RetentionPolicy {
+    public static final int DEFAULT_MAX_AGE_HOURS = 24;
+    public static final int DEFAULT_CHUNK_SIZE = 500;
+    public static final long PAUSE_BETWEEN_CHUNKS_MS = 50;
+
+    public final int maxAgeHours;
+    public final int chunkSize;
+
+    public RetentionPolicy(int maxAgeHours, int chunkSize) {
+        if (maxAgeHours <= 0 || chunkSize <= 0) {
+            throw new IllegalArgumentException("maxAgeHours and chunkSize must be positive: "
+                    + maxAgeHours + ", " + chunkSize);
+        }
+        this.maxAgeHours = maxAgeHours;
+        this.chunkSize = chunkSize;
+    }
+
+    public long cutoffTimestamp(long now) {
+        return now - maxAgeHours * 60L * 60L * 1000L;
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.todolist.retention;
+
+import android.content.Context;
+
+import androidx.lifecycle.LiveData;
+import androidx.work.Constraints;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkInfo;
+import androidx.work.WorkManager;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class RetentionScheduler {
+    private static final String WORK_NAME = "retention_purge";
+    private static final long INTERVAL_HOURS = 1;
+
+    public static void schedule(Context context) {
+        PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(
+                RetentionWorker.class, INTERVAL_HOURS, TimeUnit.HOURS)
+                .setConstraints(new Constraints.Builder()
+                        .setRequiresBatteryNotLow(true)
+                        .build())
+                .build();
+        WorkManager.getInstance(context)
+                .enqueueUniquePeriodicWork(WORK_NAME, ExistingPeriodicWorkPolicy.KEEP, request);
+    }
+
+    // Output data of the last run holds KEY_DELETED_ROWS, KEY_COMPACTED_CHANGES and KEY_DURATION_MS
+    public static LiveData<List<WorkInfo>> getWorkInfo(Context context) {
+        return WorkManager.getInstance(context).getWorkInfosForUniqueWorkLiveData(WORK_NAME);
+    }
+}
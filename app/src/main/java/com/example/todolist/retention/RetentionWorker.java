@@ -0,0 +1,87 @@
+package com.example.todolist.retention;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.Data;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.example.todolist.data.AppDatabase;
+import com.example.todolist.data.DatabaseExecutors;
+import com.example.todolist.data.TaskChange;
+import com.example.todolist.data.TaskChangeDao;
+import com.example.todolist.data.TaskDao;
+import com.example.todolist.settings.SettingsStore;
+
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Deletes completed tasks older than the policy allows, one bounded chunk at a time,
+ * then compacts the change log down to TaskChange.RETAINED_CHANGES entries.
+ * Each chunk is queued on the writer lane so UI writes can run in between.
+ */
+public class RetentionWorker extends Worker {
+    private static final String TAG = "RetentionWorker";
+
+    public static final String KEY_DELETED_ROWS = "deleted_rows";
+    public static final String KEY_DURATION_MS = "duration_ms";
+    public static final String KEY_COMPACTED_CHANGES = "compacted_changes";
+
+    public RetentionWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        RetentionPolicy policy = SettingsStore.getInstance(getApplicationContext()).loadRetentionPolicy();
+        AppDatabase db = AppDatabase.getDatabase(getApplicationContext());
+        TaskDao taskDao = db.taskDao();
+        TaskChangeDao changeDao = db.taskChangeDao();
+        long cutoff = policy.cutoffTimestamp(System.currentTimeMillis());
+        long start = SystemClock.elapsedRealtime();
+        int deleted = 0;
+        int compacted = 0;
+
+        try {
+            while (!isStopped()) {
+                int removed = DatabaseExecutors.writer()
+                        .submit(() -> taskDao.deleteOldCompletedTasks(cutoff, policy.chunkSize))
+                        .get();
+                deleted += removed;
+                if (removed < policy.chunkSize) {
+                    break;
+                }
+                Thread.sleep(RetentionPolicy.PAUSE_BETWEEN_CHUNKS_MS);
+            }
+            // The purge itself is logged, so compact after it
+            while (!isStopped()) {
+                int removed = DatabaseExecutors.writer()
+                        .submit(() -> changeDao.compact(TaskChange.RETAINED_CHANGES, policy.chunkSize))
+                        .get();
+                compacted += removed;
+                if (removed < policy.chunkSize) {
+                    break;
+                }
+                Thread.sleep(RetentionPolicy.PAUSE_BETWEEN_CHUNKS_MS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            Log.e(TAG, "Retention purge failed after " + deleted + " rows", e);
+            return Result.retry();
+        }
+
+        // The deletes reach TaskCache through the change log
+        long duration = SystemClock.elapsedRealtime() - start;
+        Log.d(TAG, "Removed " + deleted + " completed tasks and " + compacted + " change log entries in " + duration + " ms");
+        return Result.success(new Data.Builder()
+                .putInt(KEY_DELETED_ROWS, deleted)
+                .putInt(KEY_COMPACTED_CHANGES, compacted)
+                .putLong(KEY_DURATION_MS, duration)
+                .build());
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.todolist.settings;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.appcompat.app.AppCompatDelegate;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import com.example.todolist.retention.RetentionPolicy;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * Typed app settings. The preferences file is loaded on a background thread as soon
+ * as the store is created and every write is committed on that same thread, so the
+ * main thread only ever sees values already in memory. Reminder slots are not here,
+ * they live in the notification_times table behind AlarmStore.
+ */
+public class SettingsStore {
+    private static final String TAG = "SettingsStore";
+
+    private static final String PREFS_NAME = "ToDoPrefs";
+    private static final String KEY_NIGHT_MODE = "night_mode";
+    private static final String KEY_RETENTION_MAX_AGE_HOURS = "retention_max_age_hours";
+    private static final String KEY_RETENTION_CHUNK_SIZE = "retention_chunk_size";
+    private static final String KEY_EXPANDED_CATEGORIES = "expanded_categories";
+
+    private static volatile SettingsStore INSTANCE;
+
+    // Load first, then writes in submission order
+    private final ExecutorService mExecutor = Executors.newSingleThreadExecutor();
+    private final CompletableFuture<SharedPreferences> mPrefs;
+
+    private final MutableLiveData<Integer> mNightMode = new MutableLiveData<>();
+    private final MutableLiveData<RetentionPolicy> mRetentionPolicy = new MutableLiveData<>();
+    private final MutableLiveData<Set<Integer>> mExpandedCategories = new MutableLiveData<>();
+
+    public static SettingsStore getInstance(final Context context) {
+        if (INSTANCE == null) {
+            synchronized (SettingsStore.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new SettingsStore(context.getApplicationContext());
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    private SettingsStore(Context context) {
+        mPrefs = CompletableFuture.supplyAsync(() -> load(context), mExecutor);
+    }
+
+    private SharedPreferences load(Context context) {
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        mNightMode.postValue(readNightMode(prefs));
+        mRetentionPolicy.postValue(readRetentionPolicy(prefs));
+        mExpandedCategories.postValue(readExpandedCategories(prefs));
+        return prefs;
+    }
+
+    // --- Night mode ---
+
+    public LiveData<Integer> getNightMode() { return mNightMode; }
+
+    // Hands the stored mode to the main thread as soon as the preload is done, ahead
+    // of queued messages, so it usually lands before the first activity is created
+    public void whenNightModeLoaded(IntConsumer apply) {
+        mPrefs.thenAccept(prefs -> {
+            int mode = readNightMode(prefs);
+            new Handler(Looper.getMainLooper()).postAtFrontOfQueue(() -> apply.accept(mode));
+        });
+    }
+
+    public void setNightMode(int mode) {
+        edit(prefs -> {
+            prefs.edit().putInt(KEY_NIGHT_MODE, mode).commit();
+            mNightMode.postValue(mode);
+        });
+    }
+
+    // --- Retention ---
+
+    public LiveData<RetentionPolicy> getRetentionPolicy() { return mRetentionPolicy; }
+
+    // Blocking, for workers; the defaults apply unless stored
+    public RetentionPolicy loadRetentionPolicy() {
+        return readRetentionPolicy(mPrefs.join());
+    }
+
+    // Picked up by the next purge run
+    public void setRetentionPolicy(RetentionPolicy policy) {
+        edit(prefs -> {
+            prefs.edit()
+                    .putInt(KEY_RETENTION_MAX_AGE_HOURS, policy.maxAgeHours)
+                    .putInt(KEY_RETENTION_CHUNK_SIZE, policy.chunkSize)
+                    .commit();
+            mRetentionPolicy.postValue(policy);
+        });
+    }
+
+    // --- Task list ---
+
+    // Categories whose tasks are shown; all others are collapsed to their header
+    public LiveData<Set<Integer>> getExpandedCategories() { return mExpandedCategories; }
+
+    public void setCategoryExpanded(int categoryId, boolean expanded) {
+        edit(prefs -> {
+            Set<Integer> ids = readExpandedCategories(prefs);
+            boolean changed = expanded ? ids.add(categoryId) : ids.remove(categoryId);
+            if (!changed) return;
+            Set<String> stored = new HashSet<>();
+            for (int id : ids) {
+                stored.add(Integer.toString(id));
+            }
+            prefs.edit().putStringSet(KEY_EXPANDED_CATEGORIES, stored).commit();
+            mExpandedCategories.postValue(ids);
+        });
+    }
+
+    // commit() on our own thread instead of apply(), whose pending writes are
+    // flushed on the main thread when an activity stops
+    private void edit(Consumer<SharedPreferences> write) {
+        mPrefs.thenAcceptAsync(write, mExecutor);
+    }
+
+    private static int readNightMode(SharedPreferences prefs) {
+        return prefs.getInt(KEY_NIGHT_MODE, AppCompatDelegate.MODE_NIGHT_FOLLOW_SYSTEM);
+    }
+
+    // A new set each time; the one returned by getStringSet must not be modified
+    private static Set<Integer> readExpandedCategories(SharedPreferences prefs) {
+        Set<Integer> ids = new HashSet<>();
+        for (String id : prefs.getStringSet(KEY_EXPANDED_CATEGORIES, Collections.emptySet())) {
+            try {
+                ids.add(Integer.parseInt(id));
+            } catch (NumberFormatException e) {
+                Log.w(TAG, "Ignoring bad category id " + id);
+            }
+        }
+        return ids;
+    }
+
+    // Values that are not positive fall back to the defaults; a chunk size of 0
+    // would never end the purge loop in RetentionWorker
+    private static RetentionPolicy readRetentionPolicy(SharedPreferences prefs) {
+        return new RetentionPolicy(
+                readPositiveInt(prefs, KEY_RETENTION_MAX_AGE_HOURS, RetentionPolicy.DEFAULT_MAX_AGE_HOURS),
+                readPositiveInt(prefs, KEY_RETENTION_CHUNK_SIZE, RetentionPolicy.DEFAULT_CHUNK_SIZE));
+    }
+
+    private static int readPositiveInt(SharedPreferences prefs, String key, int defaultValue) {
+        int value = prefs.getInt(key, defaultValue);
+        if (value <= 0) {
+            Log.w(TAG, "Ignoring " + key + " = " + value);
+            return defaultValue;
+        }
+        return value;
+    }
+}
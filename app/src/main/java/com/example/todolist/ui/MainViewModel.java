@@ -1,103 +1,222 @@
 package com.example.todolist.ui;
 
 import android.app.Application;
-import android.content.Context;
-import android.content.SharedPreferences;
+import android.content.ContentResolver;
+import android.content.res.AssetFileDescriptor;
+import android.net.Uri;
+import android.util.Log;
 
 import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MediatorLiveData;
 import androidx.lifecycle.MutableLiveData;
 
-import com.example.todolist.data.AppDatabase;
+import com.example.todolist.R;
+import com.example.todolist.backup.BackupFormat;
 import com.example.todolist.data.Category;
+import com.example.todolist.data.DatabaseExecutors;
 import com.example.todolist.data.NotificationTime;
 import com.example.todolist.data.Task;
 import com.example.todolist.data.TaskRepository;
-import com.example.todolist.notification.AlarmScheduler;
+import com.example.todolist.notification.AlarmStore;
+import com.example.todolist.notification.DueReminderEngine;
+import com.example.todolist.settings.SettingsStore;
 
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
-
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class MainViewModel extends AndroidViewModel {
     private TaskRepository mRepository;
-    private LiveData<List<Task>> mAllTasks;
+    private SettingsStore mSettings;
     private LiveData<List<Category>> mAllCategories;
     
-    // Combined list for UI
-    private MediatorLiveData<List<TasksAdapter.Item>> mCombinedItems = new MediatorLiveData<>();
+    // Combined list for UI, grouped off the main thread
+    private MediatorLiveData<TaskListModel> mCombinedItems = new MediatorLiveData<>();
+    private TaskGroupingEngine mGroupingEngine = new TaskGroupingEngine(mCombinedItems);
+
+    // Categories whose task changes reach the grouping engine; main thread only
+    private final Set<Integer> mListenedCategories = new HashSet<>();
+
+    private final MutableLiveData<String> mWriteError = new MutableLiveData<>();
+
+    // Previous session's list, shown once per process until live data arrives
+    private static final String SNAPSHOT_FILE = "task_list.snapshot";
+    private static boolean sSnapshotLoaded = false;
+    private TaskListSnapshot mSnapshot;
+    private MutableLiveData<TaskListModel> mSnapshotItems = new MutableLiveData<>();
+
+    // Full-text search
+    private static final int SEARCH_LIMIT = 200;
+    private MutableLiveData<TaskListModel> mSearchResults = new MutableLiveData<>();
+    private final AtomicInteger mSearchGeneration = new AtomicInteger();
+    private volatile String mSearchQuery = "";
 
     // Custom Notifications
-    private MutableLiveData<List<NotificationTime>> mNotificationTimes = new MutableLiveData<>();
-    private static final String PREFS_NAME = "ToDoPrefs";
-    private static final String KEY_NOTIFICATIONS = "custom_notifications";
+    private AlarmStore mAlarmStore;
+    private LiveData<List<NotificationTime>> mNotificationTimes;
+    private DueReminderEngine mDueReminders;
+
+    // Import/export share one thread across instances, so a job outlives the screen that started it
+    private static final ExecutorService sBackupExecutor = Executors.newSingleThreadExecutor();
+    private final MutableLiveData<String> mBackupStatus = new MutableLiveData<>();
 
     public MainViewModel(Application application) {
         super(application);
         mRepository = new TaskRepository(application);
-        mAllTasks = mRepository.getAllTasks();
+        mSettings = SettingsStore.getInstance(application);
         mAllCategories = mRepository.getAllCategories();
 
-        // Check for old tasks cleanup on init
-        mRepository.deleteOldCompletedTasks();
-        
-        // Merge Logic
-        mCombinedItems.addSource(mAllCategories, categories -> combineData(categories, mAllTasks.getValue()));
-        mCombinedItems.addSource(mAllTasks, tasks -> combineData(mAllCategories.getValue(), tasks));
+        mSnapshot = new TaskListSnapshot(application, SNAPSHOT_FILE);
+        if (!sSnapshotLoaded) {
+            sSnapshotLoaded = true;
+            mSnapshot.load(mSnapshotItems::postValue);
+        }
+
+        // Merge Logic: headers with SQL counts, tasks of expanded categories only. Collapsed
+        // categories cost one header row, so the list stays in memory at any table size.
+        mCombinedItems.addSource(mAllCategories, mGroupingEngine::submitCategories);
+        mCombinedItems.addSource(mRepository.getCategoryCounts(), mGroupingEngine::submitCounts);
+        mCombinedItems.addSource(mSettings.getExpandedCategories(), this::onExpandedCategoriesChanged);
 
-        // Load Notifications
-        loadNotificationTimes();
+        mAlarmStore = AlarmStore.getInstance(application);
+        mDueReminders = DueReminderEngine.getInstance(application);
     }
 
-    private void combineData(List<Category> categories, List<Task> tasks) {
-        if (categories == null || tasks == null) {
-            return; 
-        }
+    // --- Task & Category Methods ---
 
-        List<TasksAdapter.Item> items = new ArrayList<>();
-        
-        for (Category cat : categories) {
-            // Count tasks for this category
-            int count = 0;
-            for (Task t : tasks) {
-                if (t.categoryId == cat.id) {
-                    count++;
-                }
+    public LiveData<TaskListModel> getCombinedItems() { return mCombinedItems; }
+    public LiveData<TaskListModel> getSnapshotItems() { return mSnapshotItems; }
+
+    public void saveSnapshot(TaskListModel items) {
+        mSnapshot.save(items);
+    }
+
+    public LiveData<List<Category>> getAllCategories() { return mAllCategories; }
+
+    public void setCategoryExpanded(int categoryId, boolean expanded) {
+        mSettings.setCategoryExpanded(categoryId, expanded);
+    }
+
+    // Swaps the per-category cache listeners to match the stored expand state
+    private void onExpandedCategoriesChanged(Set<Integer> expanded) {
+        mGroupingEngine.submitExpanded(expanded);
+        Iterator<Integer> it = mListenedCategories.iterator();
+        while (it.hasNext()) {
+            int categoryId = it.next();
+            if (!expanded.contains(categoryId)) {
+                mRepository.removeCategoryListener(categoryId, mGroupingEngine);
+                it.remove();
             }
-            
-            // Only add Header and Tasks if there are tasks (Hide Empty Categories)
-            if (count > 0) {
-                items.add(new TasksAdapter.CategoryHeaderItem(cat));
-                for (Task t : tasks) {
-                    if (t.categoryId == cat.id) {
-                        items.add(new TasksAdapter.TaskItem(t));
-                    }
-                }
+        }
+        for (int categoryId : expanded) {
+            if (mListenedCategories.add(categoryId)) {
+                mRepository.addCategoryListener(categoryId, mGroupingEngine);
             }
         }
-        mCombinedItems.setValue(items);
     }
 
-    // --- Task & Category Methods ---
+    // Expanded categories follow task writes row by row through TaskCache, the header counts through Room
+    public void insert(Task task) {
+        // The id is only known once the batch containing the insert is written
+        mRepository.insert(task).whenComplete((result, error) -> {
+            if (error != null) {
+                onWriteFailed(error);
+            } else {
+                mDueReminders.reschedule();
+            }
+        });
+    }
 
-    public LiveData<List<TasksAdapter.Item>> getCombinedItems() { return mCombinedItems; }
-    public LiveData<List<Task>> getAllTasks() { return mAllTasks; }
-    public LiveData<List<Category>> getAllCategories() { return mAllCategories; }
+    public void delete(Task task) {
+        mRepository.delete(task).whenComplete(this::onTaskPersisted);
+    }
+
+    public void update(Task task) {
+        mRepository.update(task).whenComplete(this::onTaskPersisted);
+    }
+
+    // Multi-selection actions, one set-based statement per chunk of tasks
+    public void setTasksDone(List<Task> tasks, boolean done) {
+        mRepository.setDone(tasks, done).whenComplete(this::onTaskPersisted);
+    }
+
+    public void moveTasks(List<Task> tasks, Category category) {
+        mRepository.moveToCategory(tasks, category.id).whenComplete(this::onTaskPersisted);
+    }
+
+    public void deleteTasks(List<Task> tasks) {
+        mRepository.deleteAll(tasks).whenComplete(this::onTaskPersisted);
+    }
+
+    // Completing, deleting or re-dating a task can move the nearest due reminder
+    private void onTaskPersisted(Void result, Throwable error) {
+        if (error != null) {
+            onWriteFailed(error);
+            return;
+        }
+        refreshSearch();
+        mDueReminders.reschedule();
+    }
+
+    // The repository has already put the stored rows back into the list
+    private void onWriteFailed(Throwable error) {
+        Log.e("MainViewModel", "Task write failed", error);
+        mWriteError.postValue(getApplication().getString(R.string.task_write_failed));
+    }
+
+    // Message of the last failed task write, null once shown
+    public LiveData<String> getWriteError() { return mWriteError; }
+
+    public void onWriteErrorShown() {
+        mWriteError.setValue(null);
+    }
+
+    public LiveData<TaskListModel> getSearchResults() { return mSearchResults; }
+
+    public void search(String text) {
+        mSearchQuery = text == null ? "" : text.trim();
+        if (mSearchQuery.isEmpty()) {
+            mSearchGeneration.incrementAndGet();
+            mSearchResults.setValue(TaskListModel.EMPTY);
+            return;
+        }
+        runSearch();
+    }
 
-    public void insert(Task task) { mRepository.insert(task); }
-    public void delete(Task task) { mRepository.delete(task); }
-    public void update(Task task) { mRepository.update(task); }
+    // Results are a snapshot, so re-run the query after a write lands
+    private void refreshSearch() {
+        if (!mSearchQuery.isEmpty()) {
+            runSearch();
+        }
+    }
+
+    private void runSearch() {
+        String query = mSearchQuery;
+        int generation = mSearchGeneration.incrementAndGet();
+        DatabaseExecutors.reader().execute(() -> {
+            if (generation != mSearchGeneration.get()) return; // A newer query is queued
+            TaskListModel items = TaskListModel.ofTasks(mRepository.searchTasks(query, SEARCH_LIMIT));
+            if (generation == mSearchGeneration.get()) {
+                mSearchResults.postValue(items);
+            }
+        });
+    }
 
     public void insertCategory(Category category) { mRepository.insertCategory(category); }
     
     public void deleteCategory(Category category) {
-        AppDatabase.databaseWriteExecutor.execute(() -> mRepository.deleteCategory(category));
+        // Goes through the same ordered writer lane as every other mutation
+        mRepository.deleteCategory(category);
+        mSettings.setCategoryExpanded(category.id, false);
     }
 
     public void renameCategory(Category category, String newName) {
@@ -105,126 +224,80 @@ public class MainViewModel extends AndroidViewModel {
          mRepository.updateCategory(category);
     }
 
+    @Override
+    protected void onCleared() {
+        super.onCleared();
+        // TaskCache outlives us; stop its callbacks before the engine goes away
+        for (int categoryId : mListenedCategories) {
+            mRepository.removeCategoryListener(categoryId, mGroupingEngine);
+        }
+        mListenedCategories.clear();
+        mGroupingEngine.shutdown();
+    }
+
     // --- Custom Notifications Methods ---
 
     public LiveData<List<NotificationTime>> getNotificationTimes() {
+        if (mNotificationTimes == null) {
+            mNotificationTimes = mAlarmStore.getAll();
+        }
         return mNotificationTimes;
     }
 
+    // Duplicates are ignored by the table's primary key
     public void addNotificationTime(int hour, int minute) {
-        List<NotificationTime> current = mNotificationTimes.getValue();
-        if (current == null) current = new ArrayList<>();
-        
-        // Prevent duplicates
-        for (NotificationTime t : current) {
-            if (t.hour == hour && t.minute == minute) return;
-        }
-
-        NotificationTime newTime = new NotificationTime(hour, minute, true);
-        current.add(newTime);
-        sortTimes(current);
-        
-        mNotificationTimes.setValue(current);
-        saveNotificationTimes(current);
-        
-        // Schedule immediately
-        scheduleNotification(newTime);
+        mAlarmStore.add(hour, minute);
     }
 
     public void toggleNotificationTime(NotificationTime time, boolean isEnabled) {
-        List<NotificationTime> current = mNotificationTimes.getValue();
-        if (current == null) return;
-        
-        // Find reference in list and update
-        for (NotificationTime t : current) {
-            if (t.equals(time)) {
-                t.isEnabled = isEnabled;
-                break;
-            }
-        }
-        
-        mNotificationTimes.setValue(current);
-        saveNotificationTimes(current);
-        
-        time.isEnabled = isEnabled; // Ensure local obj matches
-        scheduleNotification(time);
+        mAlarmStore.setEnabled(time, isEnabled);
     }
 
     public void deleteNotificationTime(NotificationTime time) {
-        List<NotificationTime> current = mNotificationTimes.getValue();
-        if (current == null) return;
-        
-        current.remove(time); // Relies on equals()
-        
-        mNotificationTimes.setValue(current);
-        saveNotificationTimes(current);
-        
-        // Cancel alarm
-        time.isEnabled = false;
-        scheduleNotification(time);
-    }
-
-    private void scheduleNotification(NotificationTime time) {
-        Context context = getApplication().getApplicationContext();
-        int requestCode = time.getRequestCode();
-        if (time.isEnabled) {
-            AlarmScheduler.scheduleAlarm(context, time.hour, time.minute, requestCode);
-        } else {
-            AlarmScheduler.cancelAlarm(context, requestCode);
-        }
+        mAlarmStore.delete(time);
     }
 
-    private void sortTimes(List<NotificationTime> times) {
-        Collections.sort(times, (t1, t2) -> {
-            int time1 = t1.hour * 60 + t1.minute;
-            int time2 = t2.hour * 60 + t2.minute;
-            return Integer.compare(time1, time2);
+    // --- Import / Export ---
+
+    public LiveData<String> getBackupStatus() { return mBackupStatus; }
+
+    public void exportTasks(Uri uri, BackupFormat format) {
+        ContentResolver resolver = getApplication().getContentResolver();
+        sBackupExecutor.execute(() -> {
+            try (OutputStream out = resolver.openOutputStream(uri)) {
+                if (out == null) throw new FileNotFoundException(uri.toString());
+                long rows = mRepository.exportTasks(out, format, this::postBackupProgress);
+                mBackupStatus.postValue(getApplication().getString(R.string.backup_exported, rows));
+            } catch (IOException e) {
+                Log.e("MainViewModel", "Export failed", e);
+                mBackupStatus.postValue(getApplication().getString(R.string.backup_failed, e.getMessage()));
+            }
         });
     }
 
-    private void loadNotificationTimes() {
-        SharedPreferences prefs = getApplication().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-        String json = prefs.getString(KEY_NOTIFICATIONS, null);
-        List<NotificationTime> loaded = new ArrayList<>();
-
-        if (json != null) {
-            try {
-                JSONArray array = new JSONArray(json);
-                for (int i = 0; i < array.length(); i++) {
-                    JSONObject obj = array.getJSONObject(i);
-                    loaded.add(new NotificationTime(
-                            obj.getInt("hour"),
-                            obj.getInt("minute"),
-                            obj.getBoolean("isEnabled")
-                    ));
+    public void importTasks(Uri uri) {
+        ContentResolver resolver = getApplication().getContentResolver();
+        sBackupExecutor.execute(() -> {
+            try (AssetFileDescriptor file = resolver.openAssetFileDescriptor(uri, "r")) {
+                if (file == null) throw new FileNotFoundException(uri.toString());
+                long rows;
+                try (InputStream in = file.createInputStream()) {
+                    rows = mRepository.importTasks(in, file.getLength(), this::postBackupProgress);
                 }
-            } catch (JSONException e) {
-                e.printStackTrace();
-            }
-        } else {
-            // Default initial times (as per original request: 9, 12, 18)
-            loaded.add(new NotificationTime(9, 0, false));
-            loaded.add(new NotificationTime(12, 0, false));
-            loaded.add(new NotificationTime(18, 0, false));
-        }
-        sortTimes(loaded);
-        mNotificationTimes.setValue(loaded);
-    }
-
-    private void saveNotificationTimes(List<NotificationTime> times) {
-        SharedPreferences prefs = getApplication().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-        JSONArray array = new JSONArray();
-        for (NotificationTime t : times) {
-            try {
-                JSONObject obj = new JSONObject();
-                obj.put("hour", t.hour);
-                obj.put("minute", t.minute);
-                obj.put("isEnabled", t.isEnabled);
-                array.put(obj);
-            } catch (JSONException e) {
-                e.printStackTrace();
+                mBackupStatus.postValue(getApplication().getString(R.string.backup_imported, rows));
+            } catch (IOException | RuntimeException e) {
+                // JsonReader reports unexpected token types as IllegalStateException
+                Log.e("MainViewModel", "Import failed", e);
+                mBackupStatus.postValue(getApplication().getString(R.string.backup_failed, e.getMessage()));
             }
-        }
-        prefs.edit().putString(KEY_NOTIFICATIONS, array.toString()).apply();
+            refreshSearch();
+            mDueReminders.reschedule();
+        });
+    }
+
+    private void postBackupProgress(long rows, int percent) {
+        mBackupStatus.postValue(percent < 0
+                ? getApplication().getString(R.string.backup_progress_rows, rows)
+                : getApplication().getString(R.string.backup_progress, rows, percent));
     }
 }
@@ -1,12 +1,16 @@
 package com.example.todolist.ui;
 
 import android.app.TimePickerDialog;
+import android.net.Uri;
 import android.os.Bundle;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.ImageButton;
+import android.widget.TextView;
 
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatDelegate;
@@ -16,7 +20,11 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.todolist.R;
+import com.example.todolist.backup.BackupFormat;
 import com.example.todolist.data.NotificationTime;
+import com.example.todolist.metrics.PerformanceMonitor;
+import com.example.todolist.metrics.StartupMetrics;
+import com.example.todolist.settings.SettingsStore;
 
 import java.util.Calendar;
 
@@ -25,11 +33,24 @@ public class SettingsFragment extends Fragment implements NotificationTimesAdapt
     private MainViewModel mViewModel;
     private NotificationTimesAdapter mAdapter;
 
+    private final ActivityResultLauncher<String> mExportJson = registerForActivityResult(
+            new ActivityResultContracts.CreateDocument(BackupFormat.JSON.mimeType),
+            uri -> onExportTarget(uri, BackupFormat.JSON));
+    private final ActivityResultLauncher<String> mExportCsv = registerForActivityResult(
+            new ActivityResultContracts.CreateDocument(BackupFormat.CSV.mimeType),
+            uri -> onExportTarget(uri, BackupFormat.CSV));
+    private final ActivityResultLauncher<String[]> mImport = registerForActivityResult(
+            new ActivityResultContracts.OpenDocument(),
+            uri -> {
+                if (uri != null) mViewModel.importTasks(uri);
+            });
+
     @Nullable
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container,
             @Nullable Bundle savedInstanceState) {
-        return inflater.inflate(R.layout.fragment_settings, container, false);
+        return StartupMetrics.trace(StartupMetrics.SECTION_SETTINGS_INFLATE, () ->
+                inflater.inflate(R.layout.fragment_settings, container, false));
     }
 
     @Override
@@ -49,29 +70,51 @@ public class SettingsFragment extends Fragment implements NotificationTimesAdapt
             mAdapter.submitList(new java.util.ArrayList<>(list)); // Submit copy to ensure diff callback runs
         });
 
-        // Dark Mode Toggle
+        // Dark Mode Toggle; ToDoApplication applies the stored mode
+        SettingsStore settings = SettingsStore.getInstance(requireContext());
         ImageButton toggleTheme = view.findViewById(R.id.button_toggle_theme);
-        updateThemeIcon(toggleTheme);
-        
+        updateThemeIcon(toggleTheme, AppCompatDelegate.getDefaultNightMode());
+        settings.getNightMode().observe(getViewLifecycleOwner(), mode -> updateThemeIcon(toggleTheme, mode));
+
         toggleTheme.setOnClickListener(v -> {
             int currentMode = AppCompatDelegate.getDefaultNightMode();
-            if (currentMode == AppCompatDelegate.MODE_NIGHT_YES) {
-                AppCompatDelegate.setDefaultNightMode(AppCompatDelegate.MODE_NIGHT_NO);
-            } else {
-                AppCompatDelegate.setDefaultNightMode(AppCompatDelegate.MODE_NIGHT_YES);
-            }
-            updateThemeIcon(toggleTheme);
+            settings.setNightMode(currentMode == AppCompatDelegate.MODE_NIGHT_YES
+                    ? AppCompatDelegate.MODE_NIGHT_NO
+                    : AppCompatDelegate.MODE_NIGHT_YES);
+        });
+
+        // Import / Export
+        view.findViewById(R.id.button_export_json).setOnClickListener(v -> mExportJson.launch("tasks.json"));
+        view.findViewById(R.id.button_export_csv).setOnClickListener(v -> mExportCsv.launch("tasks.csv"));
+        view.findViewById(R.id.button_import).setOnClickListener(v ->
+                mImport.launch(new String[] { BackupFormat.JSON.mimeType, "text/*" }));
+
+        TextView backupStatus = view.findViewById(R.id.text_backup_status);
+        mViewModel.getBackupStatus().observe(getViewLifecycleOwner(), status -> {
+            backupStatus.setVisibility(View.VISIBLE);
+            backupStatus.setText(status);
         });
     }
 
+    private void onExportTarget(Uri uri, BackupFormat format) {
+        if (uri != null) {
+            mViewModel.exportTasks(uri, format);
+        }
+    }
+
+    @Override
+    public void onResume() {
+        super.onResume();
+        PerformanceMonitor.setFragment(requireView(), "Settings");
+    }
+
     @Override
     public void onAddAction() {
         showTimePicker();
     }
 
-    private void updateThemeIcon(ImageButton button) {
-        int currentMode = AppCompatDelegate.getDefaultNightMode();
-        if (currentMode == AppCompatDelegate.MODE_NIGHT_YES) {
+    private void updateThemeIcon(ImageButton button, int mode) {
+        if (mode == AppCompatDelegate.MODE_NIGHT_YES) {
             button.setImageResource(android.R.drawable.btn_star_big_on);
         } else {
             button.setImageResource(android.R.drawable.btn_star_big_off);
@@ -0,0 +1,220 @@
+package com.example.todolist.ui;
+
+import com.example.todolist.data.Category;
+import com.example.todolist.data.Task;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of task and header rows stored one primitive array per field, so
+ * holding 100k rows costs a handful of arrays instead of 100k objects. Cleared
+ * columns keep their capacity and are refilled in place. Not thread safe.
+ */
+class TaskColumns {
+    private static final int MIN_CAPACITY = 16;
+
+    // dueTimestamp of a task without a due date
+    static final long NO_DUE = Long.MIN_VALUE;
+
+    int size;
+    byte[] type;
+    int[] id; // Task id, or category id for headers
+    int[] categoryId;
+    boolean[] done;
+    long[] created;
+    long[] doneAt;
+    long[] due;
+    long[] reminderOffset;
+    String[] name;
+    // Header rows only
+    int[] openCount;
+    int[] doneCount;
+    boolean[] expanded;
+
+    TaskColumns(int capacity) {
+        allocate(Math.max(capacity, MIN_CAPACITY));
+    }
+
+    void clear() {
+        // Drop the name references, the primitives are simply overwritten
+        Arrays.fill(name, 0, size, null);
+        size = 0;
+    }
+
+    void addHeader(Category category, int openCount, int doneCount, boolean expanded) {
+        int i = append();
+        type[i] = TasksAdapter.TYPE_CATEGORY_HEADER;
+        id[i] = category.id;
+        categoryId[i] = category.id;
+        done[i] = false;
+        created[i] = 0;
+        doneAt[i] = 0;
+        due[i] = NO_DUE;
+        reminderOffset[i] = 0;
+        name[i] = category.name;
+        this.openCount[i] = openCount;
+        this.doneCount[i] = doneCount;
+        this.expanded[i] = expanded;
+    }
+
+    void add(Task task, String internedName) {
+        set(append(), task, internedName);
+    }
+
+    // Keeps the bucket in TaskDao order, see insertionIndex
+    void insert(Task task, String internedName) {
+        int index = insertionIndex(task.isDone, task.timestampCreated);
+        append();
+        int moved = size - 1 - index;
+        if (moved > 0) {
+            System.arraycopy(type, index, type, index + 1, moved);
+            System.arraycopy(id, index, id, index + 1, moved);
+            System.arraycopy(categoryId, index, categoryId, index + 1, moved);
+            System.arraycopy(done, index, done, index + 1, moved);
+            System.arraycopy(created, index, created, index + 1, moved);
+            System.arraycopy(doneAt, index, doneAt, index + 1, moved);
+            System.arraycopy(due, index, due, index + 1, moved);
+            System.arraycopy(reminderOffset, index, reminderOffset, index + 1, moved);
+            System.arraycopy(name, index, name, index + 1, moved);
+            System.arraycopy(openCount, index, openCount, index + 1, moved);
+            System.arraycopy(doneCount, index, doneCount, index + 1, moved);
+            System.arraycopy(expanded, index, expanded, index + 1, moved);
+        }
+        set(index, task, internedName);
+    }
+
+    void remove(int index) {
+        int moved = size - 1 - index;
+        if (moved > 0) {
+            System.arraycopy(type, index + 1, type, index, moved);
+            System.arraycopy(id, index + 1, id, index, moved);
+            System.arraycopy(categoryId, index + 1, categoryId, index, moved);
+            System.arraycopy(done, index + 1, done, index, moved);
+            System.arraycopy(created, index + 1, created, index, moved);
+            System.arraycopy(doneAt, index + 1, doneAt, index, moved);
+            System.arraycopy(due, index + 1, due, index, moved);
+            System.arraycopy(reminderOffset, index + 1, reminderOffset, index, moved);
+            System.arraycopy(name, index + 1, name, index, moved);
+            System.arraycopy(openCount, index + 1, openCount, index, moved);
+            System.arraycopy(doneCount, index + 1, doneCount, index, moved);
+            System.arraycopy(expanded, index + 1, expanded, index, moved);
+        }
+        size--;
+        name[size] = null;
+    }
+
+    // Linear scan over a primitive array, cheap even for large buckets
+    int indexOfTask(int taskId) {
+        for (int i = 0; i < size; i++) {
+            if (id[i] == taskId && type[i] == TasksAdapter.TYPE_TASK) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Appends rows [from, from + count) of another column set
+    void addRange(TaskColumns source, int from, int count) {
+        ensureCapacity(size + count);
+        System.arraycopy(source.type, from, type, size, count);
+        System.arraycopy(source.id, from, id, size, count);
+        System.arraycopy(source.categoryId, from, categoryId, size, count);
+        System.arraycopy(source.done, from, done, size, count);
+        System.arraycopy(source.created, from, created, size, count);
+        System.arraycopy(source.doneAt, from, doneAt, size, count);
+        System.arraycopy(source.due, from, due, size, count);
+        System.arraycopy(source.reminderOffset, from, reminderOffset, size, count);
+        System.arraycopy(source.name, from, name, size, count);
+        System.arraycopy(source.openCount, from, openCount, size, count);
+        System.arraycopy(source.doneCount, from, doneCount, size, count);
+        System.arraycopy(source.expanded, from, expanded, size, count);
+        size += count;
+    }
+
+    Task toTask(int i) {
+        Task task = new Task(name[i], categoryId[i], created[i]);
+        task.id = id[i];
+        task.isDone = done[i];
+        task.timestampDone = doneAt[i];
+        task.setDue(due[i] == NO_DUE ? null : due[i], reminderOffset[i]);
+        return task;
+    }
+
+    Category toCategory(int i) {
+        Category category = new Category(name[i]);
+        category.id = id[i];
+        return category;
+    }
+
+    // Same order as TaskDao: open tasks first, newest first
+    private int insertionIndex(boolean isDone, long timestampCreated) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = done[mid] != isDone
+                    ? (done[mid] ? 1 : -1)
+                    : Long.compare(timestampCreated, created[mid]);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return low;
+    }
+
+    private void set(int i, Task task, String internedName) {
+        type[i] = TasksAdapter.TYPE_TASK;
+        id[i] = task.id;
+        categoryId[i] = task.categoryId;
+        done[i] = task.isDone;
+        created[i] = task.timestampCreated;
+        doneAt[i] = task.timestampDone;
+        due[i] = task.dueTimestamp == null ? NO_DUE : task.dueTimestamp;
+        reminderOffset[i] = task.reminderOffset;
+        name[i] = internedName;
+        openCount[i] = 0;
+        doneCount[i] = 0;
+        expanded[i] = false;
+    }
+
+    private int append() {
+        ensureCapacity(size + 1);
+        return size++;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= id.length) return;
+        int grown = Math.max(capacity, id.length + (id.length >> 1));
+        type = Arrays.copyOf(type, grown);
+        id = Arrays.copyOf(id, grown);
+        categoryId = Arrays.copyOf(categoryId, grown);
+        done = Arrays.copyOf(done, grown);
+        created = Arrays.copyOf(created, grown);
+        doneAt = Arrays.copyOf(doneAt, grown);
+        due = Arrays.copyOf(due, grown);
+        reminderOffset = Arrays.copyOf(reminderOffset, grown);
+        name = Arrays.copyOf(name, grown);
+        openCount = Arrays.copyOf(openCount, grown);
+        doneCount = Arrays.copyOf(doneCount, grown);
+        expanded = Arrays.copyOf(expanded, grown);
+    }
+
+    private void allocate(int capacity) {
+        type = new byte[capacity];
+        id = new int[capacity];
+        categoryId = new int[capacity];
+        done = new boolean[capacity];
+        created = new long[capacity];
+        doneAt = new long[capacity];
+        due = new long[capacity];
+        reminderOffset = new long[capacity];
+        name = new String[capacity];
+        openCount = new int[capacity];
+        doneCount = new int[capacity];
+        expanded = new boolean[capacity];
+    }
+}
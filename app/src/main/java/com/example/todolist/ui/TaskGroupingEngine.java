@@ -0,0 +1,269 @@
+package com.example.todolist.ui;
+
+import android.util.SparseArray;
+
+import androidx.annotation.VisibleForTesting;
+import androidx.lifecycle.MutableLiveData;
+
+import com.example.todolist.data.Category;
+import com.example.todolist.data.CategoryCount;
+import com.example.todolist.data.Task;
+import com.example.todolist.data.TaskCache;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Builds the flattened header + task list on a background thread. Every non-empty
+ * category gets a header with its counts from TaskDao.getCategoryCounts, but tasks
+ * are only held for expanded categories, one reusable column set each. Memory and
+ * work therefore scale with what is expanded, not with the whole table.
+ * Registered as TaskCache listener of the expanded categories, a task write patches
+ * its single row in place instead of refilling the category. A category rename
+ * only replaces the header names in the last published model.
+ */
+public class TaskGroupingEngine implements TaskCache.CategoryListener {
+
+    private final ExecutorService mExecutor = Executors.newSingleThreadExecutor();
+    private final MutableLiveData<TaskListModel> mOutput;
+
+    // Only touched on mExecutor; nothing is published until the first three are known
+    private List<Category> mCategories;
+    private SparseArray<CategoryCount> mCounts;
+    private Set<Integer> mExpanded;
+    private final SparseArray<TaskColumns> mBuckets = new SparseArray<>();
+    private int mTaskCount = 0;
+
+    // One String instance per distinct name, across emissions
+    private final Map<String, String> mNames = new HashMap<>();
+
+    // Latest task list per category that is not applied yet; older ones are skipped
+    private final Map<Integer, List<Task>> mPendingTasks = new ConcurrentHashMap<>();
+
+    // Only touched on mExecutor; a burst of changes is published once
+    private boolean mPublishQueued = false;
+    private TaskListModel mPublished;
+
+    public TaskGroupingEngine(MutableLiveData<TaskListModel> output) {
+        mOutput = output;
+    }
+
+    // A rename only patches the header rows of the last model, nothing is regrouped
+    public void submitCategories(List<Category> categories) {
+        if (categories == null) return;
+        mExecutor.execute(() -> {
+            List<Category> previous = mCategories;
+            mCategories = categories;
+            if (mPublishQueued || mPublished == null || !sameIds(previous, categories)) {
+                publish();
+                return;
+            }
+            SparseArray<String> renamed = new SparseArray<>();
+            for (int i = 0; i < categories.size(); i++) {
+                Category category = categories.get(i);
+                if (!Objects.equals(category.name, previous.get(i).name)) {
+                    renamed.put(category.id, category.name);
+                }
+            }
+            if (renamed.size() > 0) {
+                mPublished = mPublished.withHeaderNames(renamed);
+                mOutput.postValue(mPublished);
+            }
+        });
+    }
+
+    public void submitCounts(List<CategoryCount> counts) {
+        if (counts == null) return;
+        mExecutor.execute(() -> {
+            SparseArray<CategoryCount> byCategory = new SparseArray<>(counts.size());
+            for (CategoryCount count : counts) {
+                byCategory.put(count.categoryId, count);
+            }
+            mCounts = byCategory;
+            publish();
+        });
+    }
+
+    // Collapsed categories drop their tasks right away
+    public void submitExpanded(Set<Integer> expanded) {
+        if (expanded == null) return;
+        Set<Integer> copy = new HashSet<>(expanded);
+        mExecutor.execute(() -> {
+            mExpanded = copy;
+            for (int i = mBuckets.size() - 1; i >= 0; i--) {
+                if (!copy.contains(mBuckets.keyAt(i))) {
+                    mTaskCount -= mBuckets.valueAt(i).size;
+                    mBuckets.removeAt(i);
+                }
+            }
+            publish();
+        });
+    }
+
+    // --- TaskCache.CategoryListener, called under the cache lock ---
+
+    // Tasks of one expanded category, in TaskDao order
+    @Override
+    public void onCategoryLoaded(int categoryId, List<Task> tasks) {
+        mPendingTasks.put(categoryId, tasks);
+        mExecutor.execute(() -> {
+            List<Task> latest = mPendingTasks.remove(categoryId);
+            if (latest == null || !isExpanded(categoryId)) {
+                return; // Already applied, or collapsed meanwhile
+            }
+            fill(bucketFor(categoryId), latest);
+            publish();
+        });
+    }
+
+    @Override
+    public void onTaskChanged(Task task) {
+        mExecutor.execute(() -> {
+            TaskColumns bucket = mBuckets.get(task.categoryId);
+            if (bucket == null || !isExpanded(task.categoryId)) {
+                return; // Not loaded yet, the load includes it
+            }
+            int index = bucket.indexOfTask(task.id);
+            if (index >= 0) {
+                bucket.remove(index);
+            } else {
+                mTaskCount++;
+            }
+            bucket.insert(task, intern(task.name));
+            publish();
+        });
+    }
+
+    @Override
+    public void onTaskRemoved(int categoryId, int taskId) {
+        mExecutor.execute(() -> {
+            TaskColumns bucket = mBuckets.get(categoryId);
+            int index = bucket != null ? bucket.indexOfTask(taskId) : -1;
+            if (index < 0) return;
+            bucket.remove(index);
+            mTaskCount--;
+            publish();
+        });
+    }
+
+    // Full regroup with every category expanded, returning the list instead of posting it
+    @VisibleForTesting
+    public TaskListModel regroupBlocking(List<Category> categories, List<Task> tasks)
+            throws ExecutionException, InterruptedException {
+        return mExecutor.submit(() -> {
+            mCategories = categories;
+            mPublished = null;
+            for (int i = 0; i < mBuckets.size(); i++) {
+                mBuckets.valueAt(i).clear();
+            }
+            for (Task t : tasks) {
+                bucketFor(t.categoryId).add(t, intern(t.name));
+            }
+            mTaskCount = tasks.size();
+            mExpanded = new HashSet<>();
+            mCounts = new SparseArray<>(mBuckets.size());
+            for (int i = 0; i < mBuckets.size(); i++) {
+                TaskColumns bucket = mBuckets.valueAt(i);
+                CategoryCount count = new CategoryCount();
+                count.categoryId = mBuckets.keyAt(i);
+                count.totalCount = bucket.size;
+                for (int row = 0; row < bucket.size; row++) {
+                    if (bucket.done[row]) count.doneCount++;
+                }
+                mCounts.put(count.categoryId, count);
+                mExpanded.add(count.categoryId);
+            }
+            return buildModel();
+        }).get();
+    }
+
+    public void shutdown() {
+        mExecutor.shutdownNow();
+    }
+
+    // Refills the bucket in place, its arrays are reused
+    private void fill(TaskColumns bucket, List<Task> tasks) {
+        mTaskCount -= bucket.size;
+        bucket.clear();
+        for (Task t : tasks) {
+            bucket.add(t, intern(t.name));
+        }
+        mTaskCount += bucket.size;
+        // Names of deleted or collapsed tasks would otherwise be kept forever
+        if (mNames.size() > 2 * mTaskCount + 1000) {
+            mNames.clear();
+        }
+    }
+
+    private TaskColumns bucketFor(int categoryId) {
+        TaskColumns bucket = mBuckets.get(categoryId);
+        if (bucket == null) {
+            bucket = new TaskColumns(0);
+            mBuckets.put(categoryId, bucket);
+        }
+        return bucket;
+    }
+
+    private String intern(String name) {
+        if (name == null) return null;
+        String existing = mNames.putIfAbsent(name, name);
+        return existing != null ? existing : name;
+    }
+
+    private boolean isExpanded(int categoryId) {
+        return mExpanded != null && mExpanded.contains(categoryId);
+    }
+
+    // Runs after the changes already queued, so a burst builds one model
+    private void publish() {
+        if (mPublishQueued) return;
+        mPublishQueued = true;
+        mExecutor.execute(() -> {
+            mPublishQueued = false;
+            if (mCategories == null || mCounts == null || mExpanded == null) {
+                return;
+            }
+            mPublished = buildModel();
+            mOutput.postValue(mPublished);
+        });
+    }
+
+    private static boolean sameIds(List<Category> a, List<Category> b) {
+        if (a == null || a.size() != b.size()) return false;
+        for (int i = 0; i < a.size(); i++) {
+            if (a.get(i).id != b.get(i).id) return false;
+        }
+        return true;
+    }
+
+    // A header per non-empty category, then bulk array copies of the expanded buckets
+    private TaskListModel buildModel() {
+        TaskColumns rows = new TaskColumns(mTaskCount + mCategories.size());
+        for (Category cat : mCategories) {
+            CategoryCount count = mCounts.get(cat.id);
+            TaskColumns bucket = mBuckets.get(cat.id);
+            boolean hasTasks = bucket != null && bucket.size > 0;
+            // Hide empty categories; a just written task may arrive before its count
+            if ((count == null || count.totalCount == 0) && !hasTasks) {
+                continue;
+            }
+            boolean expanded = mExpanded.contains(cat.id);
+            rows.addHeader(cat,
+                    count != null ? count.getOpenCount() : 0,
+                    count != null ? count.doneCount : 0,
+                    expanded);
+            if (expanded && hasTasks) {
+                rows.addRange(bucket, 0, bucket.size);
+            }
+        }
+        return new TaskListModel(rows);
+    }
+}
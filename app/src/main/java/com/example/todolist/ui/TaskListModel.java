@@ -0,0 +1,81 @@
+package com.example.todolist.ui;
+
+import android.util.SparseArray;
+
+import com.example.todolist.data.Category;
+import com.example.todolist.data.Task;
+
+import java.util.List;
+
+/**
+ * Immutable, flattened header + task list as published to TasksAdapter. Headers
+ * carry their category's task counts and expand state. Rows are read by position
+ * straight from the primitive columns; Task and Category objects are only created
+ * for the rows that are bound or acted on.
+ */
+public final class TaskListModel {
+    public static final TaskListModel EMPTY = new TaskListModel(new TaskColumns(0));
+
+    // Never modified once wrapped
+    private final TaskColumns mColumns;
+
+    TaskListModel(TaskColumns columns) {
+        mColumns = columns;
+    }
+
+    // Task rows only, as used for search results
+    static TaskListModel ofTasks(List<Task> tasks) {
+        TaskColumns columns = new TaskColumns(tasks.size());
+        for (Task task : tasks) {
+            columns.add(task, task.name);
+        }
+        return new TaskListModel(columns);
+    }
+
+    public int size() { return mColumns.size; }
+    public boolean isEmpty() { return mColumns.size == 0; }
+
+    public int getType(int position) { return mColumns.type[position]; }
+    public boolean isHeader(int position) { return mColumns.type[position] == TasksAdapter.TYPE_CATEGORY_HEADER; }
+
+    // Negative ids for headers to avoid collision with task ids
+    public long getStableId(int position) {
+        int id = mColumns.id[position];
+        return isHeader(position) ? id * -1L : id;
+    }
+
+    public int getId(int position) { return mColumns.id[position]; }
+    public int getCategoryId(int position) { return mColumns.categoryId[position]; }
+    public boolean isDone(int position) { return mColumns.done[position]; }
+    public long getTimestampCreated(int position) { return mColumns.created[position]; }
+    public long getTimestampDone(int position) { return mColumns.doneAt[position]; }
+    public String getName(int position) { return mColumns.name[position]; }
+
+    // Header rows only
+    public int getOpenCount(int position) { return mColumns.openCount[position]; }
+    public int getDoneCount(int position) { return mColumns.doneCount[position]; }
+    public boolean isExpanded(int position) { return mColumns.expanded[position]; }
+
+    // Copy with the given header names replaced, keyed by category id
+    TaskListModel withHeaderNames(SparseArray<String> names) {
+        TaskColumns columns = new TaskColumns(mColumns.size);
+        columns.addRange(mColumns, 0, mColumns.size);
+        for (int i = 0; i < columns.size; i++) {
+            if (columns.type[i] != TasksAdapter.TYPE_CATEGORY_HEADER) continue;
+            String name = names.get(columns.id[i]);
+            if (name != null) {
+                columns.name[i] = name;
+            }
+        }
+        return new TaskListModel(columns);
+    }
+
+    // Position of the task row, or -1
+    public int indexOfTask(int taskId) { return mColumns.indexOfTask(taskId); }
+
+    public Task toTask(int position) { return mColumns.toTask(position); }
+    public Category toCategory(int position) { return mColumns.toCategory(position); }
+
+    // Package-private for TaskListSnapshot, which writes the raw fields
+    TaskColumns columns() { return mColumns; }
+}
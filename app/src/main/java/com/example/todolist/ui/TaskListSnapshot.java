@@ -0,0 +1,169 @@
+package com.example.todolist.ui;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.example.todolist.data.Category;
+import com.example.todolist.data.Task;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * The first MAX_ITEMS rows of the last rendered task list in a small binary file,
+ * so a cold start can draw the list before the database is open. Layout:
+ * magic, version, count, then per row a type byte followed by its fixed fields
+ * and length-prefixed UTF-8 names.
+ */
+public class TaskListSnapshot {
+    private static final String TAG = "TaskListSnapshot";
+
+    private static final int MAGIC = 0x544C5331; // "TLS1"
+    private static final int VERSION = 3; // 2: header counts and expand state, 3: counts always known
+
+    // A few screens worth of rows
+    static final int MAX_ITEMS = 300;
+
+    // Reads and writes run in submission order, off the main thread
+    private static final ExecutorService sExecutor = Executors.newSingleThreadExecutor();
+
+    private final Context mContext;
+    private final String mName;
+
+    // Resolved on the executor, getCacheDir() touches the disk
+    private File mFile;
+
+    public TaskListSnapshot(Context context, String name) {
+        mContext = context.getApplicationContext();
+        mName = name;
+    }
+
+    public void load(Consumer<TaskListModel> callback) {
+        sExecutor.execute(() -> callback.accept(read()));
+    }
+
+    // The model is immutable, so it is written as is
+    public void save(TaskListModel items) {
+        sExecutor.execute(() -> write(items));
+    }
+
+    // Empty if there is no usable snapshot
+    TaskListModel read() {
+        resolveFile();
+        if (!mFile.exists()) {
+            return TaskListModel.EMPTY;
+        }
+        try (FileChannel channel = FileChannel.open(mFile.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("Unknown snapshot format");
+            }
+            int count = buffer.getInt();
+            if (count < 0 || count > MAX_ITEMS) {
+                throw new IOException("Bad item count " + count);
+            }
+            TaskColumns items = new TaskColumns(count);
+            for (int i = 0; i < count; i++) {
+                if (buffer.get() == TasksAdapter.TYPE_CATEGORY_HEADER) {
+                    Category category = new Category(null);
+                    category.id = buffer.getInt();
+                    int openCount = buffer.getInt();
+                    int doneCount = buffer.getInt();
+                    boolean expanded = buffer.get() != 0;
+                    category.name = readString(buffer);
+                    items.addHeader(category, openCount, doneCount, expanded);
+                } else {
+                    Task task = new Task(null, 0, 0);
+                    task.id = buffer.getInt();
+                    task.categoryId = buffer.getInt();
+                    task.isDone = buffer.get() != 0;
+                    task.timestampCreated = buffer.getLong();
+                    task.timestampDone = buffer.getLong();
+                    long due = buffer.getLong();
+                    long reminderOffset = buffer.getLong();
+                    task.setDue(due == Long.MIN_VALUE ? null : due, reminderOffset);
+                    task.name = readString(buffer);
+                    items.add(task, task.name);
+                }
+            }
+            return new TaskListModel(items);
+        } catch (IOException | BufferUnderflowException e) {
+            Log.w(TAG, "Discarding unreadable snapshot", e);
+            mFile.delete();
+            return TaskListModel.EMPTY;
+        }
+    }
+
+    // Written to a temporary file and renamed, so a reader never sees half a snapshot
+    void write(TaskListModel model) {
+        resolveFile();
+        TaskColumns items = model.columns();
+        int count = Math.min(items.size, MAX_ITEMS);
+        File tmp = new File(mFile.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(count);
+            for (int i = 0; i < count; i++) {
+                if (items.type[i] == TasksAdapter.TYPE_CATEGORY_HEADER) {
+                    out.writeByte(TasksAdapter.TYPE_CATEGORY_HEADER);
+                    out.writeInt(items.id[i]);
+                    out.writeInt(items.openCount[i]);
+                    out.writeInt(items.doneCount[i]);
+                    out.writeByte(items.expanded[i] ? 1 : 0);
+                    writeString(out, items.name[i]);
+                } else {
+                    out.writeByte(TasksAdapter.TYPE_TASK);
+                    out.writeInt(items.id[i]);
+                    out.writeInt(items.categoryId[i]);
+                    out.writeByte(items.done[i] ? 1 : 0);
+                    out.writeLong(items.created[i]);
+                    out.writeLong(items.doneAt[i]);
+                    out.writeLong(items.due[i]); // NO_DUE is Long.MIN_VALUE, as before
+                    out.writeLong(items.reminderOffset[i]);
+                    writeString(out, items.name[i]);
+                }
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Could not write snapshot", e);
+            tmp.delete();
+            return;
+        }
+        if (!tmp.renameTo(mFile)) {
+            tmp.delete();
+        }
+    }
+
+    private void resolveFile() {
+        if (mFile == null) {
+            mFile = new File(mContext.getCacheDir(), mName);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = (value == null ? "" : value).getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(MappedByteBuffer buffer) throws IOException {
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IOException("Bad string length " + length);
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
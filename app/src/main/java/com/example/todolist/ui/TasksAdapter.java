@@ -1,6 +1,8 @@
 package com.example.todolist.ui;
 
 import android.graphics.Paint;
+import android.os.Handler;
+import android.os.Looper;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -9,118 +11,301 @@ import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.recyclerview.widget.DiffUtil;
-import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.todolist.R;
 import com.example.todolist.data.Category;
 import com.example.todolist.data.Task;
 
-public class TasksAdapter extends ListAdapter<TasksAdapter.Item, RecyclerView.ViewHolder> {
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 
-    private static final int TYPE_CATEGORY_HEADER = 0;
-    private static final int TYPE_TASK = 1;
+/**
+ * Shows a TaskListModel. New models are diffed against the current one on a
+ * background thread by comparing columns position by position, so neither the
+ * diff nor the model needs an object per row.
+ */
+public class TasksAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
+
+    static final int TYPE_CATEGORY_HEADER = 0;
+    static final int TYPE_TASK = 1;
+
+    // Partial rebind flags returned by ModelDiff.getChangePayload
+    static final int PAYLOAD_DONE = 1;
+    static final int PAYLOAD_NAME = 1 << 1;
+    static final int PAYLOAD_SELECTION = 1 << 2;
+
+    // Diffs of large lists run here, one at a time
+    private static final Executor DIFF_EXECUTOR = Executors.newSingleThreadExecutor();
+    private static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
 
     private OnItemClickListener listener;
 
+    // Main thread only
+    private TaskListModel mList = TaskListModel.EMPTY;
+    private int mGeneration = 0;
+
+    // Multi-selection by task id; main thread only
+    private final Set<Integer> mSelected = new HashSet<>();
+    private boolean mSelecting = false;
+
     public interface OnItemClickListener {
         void onCheckChanged(Task task, boolean isChecked);
         void onCategoryDelete(Category category);
         void onCategoryRename(Category category);
         void onTaskDelete(Task task);
+        void onCategoryExpandToggle(Category category, boolean expand);
+        void onTaskClick(Task task);
+        // Returns true if the long click started a selection
+        boolean onTaskLongClick(Task task);
+        void onSelectionChanged(int selectedCount);
     }
 
-    public interface Item {
-        int getType();
-        long getId();
+    public TasksAdapter(OnItemClickListener listener) {
+        this.listener = listener;
+        setHasStableIds(true);
     }
 
-    public static class CategoryHeaderItem implements Item {
-        public Category category;
-        public CategoryHeaderItem(Category category) { this.category = category; }
-        @Override public int getType() { return TYPE_CATEGORY_HEADER; }
-        @Override public long getId() { return category.id * -1L; } // Negative IDs for headers to avoid collision
+    public TaskListModel getCurrentList() {
+        return mList;
     }
 
-    public static class TaskItem implements Item {
-        public Task task;
-        public TaskItem(Task task) { this.task = task; }
-        @Override public int getType() { return TYPE_TASK; }
-        @Override public long getId() { return task.id; }
+    public void submitList(TaskListModel list) {
+        submitList(list, null);
     }
 
-    public TasksAdapter(OnItemClickListener listener) {
-        super(new DiffCallback());
-        this.listener = listener;
+    // Same contract as ListAdapter.submitList: the callback runs once the list is shown,
+    // and a newer submission cancels an older diff still in flight
+    public void submitList(TaskListModel list, @Nullable Runnable commitCallback) {
+        int generation = ++mGeneration;
+        TaskListModel old = mList;
+        if (list == old) {
+            if (commitCallback != null) commitCallback.run();
+            return;
+        }
+        if (old.isEmpty() || list.isEmpty()) {
+            // Nothing to diff
+            mList = list;
+            if (old.isEmpty()) {
+                notifyItemRangeInserted(0, list.size());
+            } else {
+                notifyItemRangeRemoved(0, old.size());
+            }
+            pruneSelection();
+            if (commitCallback != null) commitCallback.run();
+            return;
+        }
+        DIFF_EXECUTOR.execute(() -> {
+            DiffUtil.DiffResult result = DiffUtil.calculateDiff(new ModelDiff(old, list));
+            MAIN_HANDLER.post(() -> {
+                if (generation != mGeneration) return;
+                mList = list;
+                result.dispatchUpdatesTo(this);
+                pruneSelection();
+                if (commitCallback != null) commitCallback.run();
+            });
+        });
+    }
+
+    // --- Multi-selection ---
+
+    public boolean isSelecting() {
+        return mSelecting;
+    }
+
+    public int getSelectedCount() {
+        return mSelected.size();
+    }
+
+    public void startSelection() {
+        if (mSelecting) return;
+        mSelecting = true;
+        notifyItemRangeChanged(0, getItemCount(), PAYLOAD_SELECTION);
+    }
+
+    public void toggleSelection(int taskId) {
+        if (!mSelected.remove(taskId)) {
+            mSelected.add(taskId);
+        }
+        int position = mList.indexOfTask(taskId);
+        if (position >= 0) {
+            notifyItemChanged(position, PAYLOAD_SELECTION);
+        }
+        listener.onSelectionChanged(mSelected.size());
+    }
+
+    public void endSelection() {
+        if (!mSelecting) return;
+        mSelecting = false;
+        mSelected.clear();
+        notifyItemRangeChanged(0, getItemCount(), PAYLOAD_SELECTION);
+    }
+
+    // Selected tasks in list order; Task objects are only created here
+    public List<Task> getSelectedTasks() {
+        List<Task> tasks = new ArrayList<>(mSelected.size());
+        for (int i = 0; i < mList.size() && tasks.size() < mSelected.size(); i++) {
+            if (!mList.isHeader(i) && mSelected.contains(mList.getId(i))) {
+                tasks.add(mList.toTask(i));
+            }
+        }
+        return tasks;
+    }
+
+    // Deleted tasks, or tasks of a collapsed category, leave the selection
+    private void pruneSelection() {
+        if (mSelected.isEmpty()) return;
+        Set<Integer> shown = new HashSet<>(mSelected.size());
+        for (int i = 0; i < mList.size(); i++) {
+            if (!mList.isHeader(i) && mSelected.contains(mList.getId(i))) {
+                shown.add(mList.getId(i));
+            }
+        }
+        if (shown.size() != mSelected.size()) {
+            mSelected.retainAll(shown);
+            listener.onSelectionChanged(mSelected.size());
+        }
+    }
+
+    @Override
+    public int getItemCount() {
+        return mList.size();
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return mList.getStableId(position);
     }
 
     @Override
     public int getItemViewType(int position) {
-        return getItem(position).getType();
+        return mList.getType(position);
     }
 
     @NonNull
     @Override
     public RecyclerView.ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
-        if (viewType == TYPE_CATEGORY_HEADER) {
-            View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_category_header, parent, false);
-            return new HeaderViewHolder(view);
-        } else {
-            View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_task, parent, false);
-            return new TaskViewHolder(view);
-        }
+        return createViewHolder(parent, viewType, listener);
     }
 
+    // Only the bound rows are materialized as objects
     @Override
     public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position) {
         if (holder instanceof HeaderViewHolder) {
-            ((HeaderViewHolder) holder).bind(((CategoryHeaderItem) getItem(position)).category);
+            ((HeaderViewHolder) holder).bind(mList.toCategory(position),
+                    mList.getOpenCount(position), mList.getDoneCount(position), mList.isExpanded(position));
+        } else if (holder instanceof TaskViewHolder) {
+            TaskViewHolder taskHolder = (TaskViewHolder) holder;
+            taskHolder.bind(mList.toTask(position));
+            taskHolder.bindSelection(mSelecting, mSelected.contains(mList.getId(position)));
+        }
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.isEmpty()) {
+            onBindViewHolder(holder, position);
+            return;
+        }
+        if (holder instanceof HeaderViewHolder) {
+            // Name, counts and expand state are all cheap, so headers always rebind fully
+            onBindViewHolder(holder, position);
         } else if (holder instanceof TaskViewHolder) {
-            ((TaskViewHolder) holder).bind(((TaskItem) getItem(position)).task);
+            TaskViewHolder taskHolder = (TaskViewHolder) holder;
+            int flags = mergePayloads(payloads);
+            taskHolder.bindPartial(mList.toTask(position), flags);
+            if ((flags & PAYLOAD_SELECTION) != 0) {
+                taskHolder.bindSelection(mSelecting, mSelected.contains(mList.getId(position)));
+            }
+        }
+    }
+
+    private static int mergePayloads(List<Object> payloads) {
+        int flags = 0;
+        for (Object payload : payloads) {
+            if (payload instanceof Integer) {
+                flags |= (Integer) payload;
+            }
+        }
+        return flags;
+    }
+
+    private static RecyclerView.ViewHolder createViewHolder(ViewGroup parent, int viewType, OnItemClickListener listener) {
+        if (viewType == TYPE_CATEGORY_HEADER) {
+            View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_category_header, parent, false);
+            return new HeaderViewHolder(view, listener);
+        } else {
+            View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_task, parent, false);
+            return new TaskViewHolder(view, listener);
         }
     }
 
-    class HeaderViewHolder extends RecyclerView.ViewHolder {
+    static class HeaderViewHolder extends RecyclerView.ViewHolder {
         private TextView nameText;
+        private TextView countText;
+        private ImageView expandIcon;
         private ImageView deleteIcon;
         private ImageView renameIcon;
+        private Category category;
+        private boolean expanded;
 
-        public HeaderViewHolder(@NonNull View itemView) {
+        public HeaderViewHolder(@NonNull View itemView, OnItemClickListener listener) {
             super(itemView);
             nameText = itemView.findViewById(R.id.text_header_name);
+            countText = itemView.findViewById(R.id.text_header_count);
+            expandIcon = itemView.findViewById(R.id.image_expand);
             deleteIcon = itemView.findViewById(R.id.image_delete);
             renameIcon = itemView.findViewById(R.id.image_rename);
 
+            itemView.setOnClickListener(v -> {
+                if (category != null && listener != null) {
+                    listener.onCategoryExpandToggle(category, !expanded);
+                }
+            });
+
             deleteIcon.setOnClickListener(v -> {
-                int pos = getAdapterPosition();
-                if (pos != RecyclerView.NO_POSITION) {
-                    CategoryHeaderItem item = (CategoryHeaderItem) getItem(pos);
-                    listener.onCategoryDelete(item.category);
+                if (category != null && listener != null) {
+                    listener.onCategoryDelete(category);
                 }
             });
 
             renameIcon.setOnClickListener(v -> {
-                int pos = getAdapterPosition();
-                if (pos != RecyclerView.NO_POSITION) {
-                    CategoryHeaderItem item = (CategoryHeaderItem) getItem(pos);
-                    listener.onCategoryRename(item.category);
+                if (category != null && listener != null) {
+                    listener.onCategoryRename(category);
                 }
             });
         }
 
-        public void bind(Category category) {
+        public void bind(Category category, int openCount, int doneCount, boolean expanded) {
+            bindName(category);
+            this.expanded = expanded;
+            countText.setText(itemView.getContext().getString(R.string.category_counts, openCount, doneCount));
+            expandIcon.setImageResource(expanded
+                    ? android.R.drawable.arrow_up_float : android.R.drawable.arrow_down_float);
+            expandIcon.setContentDescription(itemView.getContext().getString(expanded
+                    ? R.string.action_collapse : R.string.action_expand));
+        }
+
+        public void bindName(Category category) {
+            this.category = category;
             nameText.setText(category.name);
         }
     }
 
-    class TaskViewHolder extends RecyclerView.ViewHolder {
+    static class TaskViewHolder extends RecyclerView.ViewHolder {
         private TextView nameText;
         private CheckBox checkBox;
         private ImageView deleteButton;
         private View rootView;
+        private Task task;
 
-        public TaskViewHolder(@NonNull View itemView) {
+        public TaskViewHolder(@NonNull View itemView, OnItemClickListener listener) {
             super(itemView);
             rootView = itemView;
             nameText = itemView.findViewById(R.id.text_task_name);
@@ -128,24 +313,51 @@ public class TasksAdapter extends ListAdapter<TasksAdapter.Item, RecyclerView.Vi
             deleteButton = itemView.findViewById(R.id.image_delete_task);
 
             checkBox.setOnClickListener(v -> {
-                int position = getAdapterPosition();
-                if (position != RecyclerView.NO_POSITION && listener != null) {
-                    TaskItem item = (TaskItem) getItem(position);
-                    listener.onCheckChanged(item.task, checkBox.isChecked());
+                if (task != null && listener != null) {
+                    listener.onCheckChanged(task, checkBox.isChecked());
                 }
             });
 
             deleteButton.setOnClickListener(v -> {
-                int position = getAdapterPosition();
-                if (position != RecyclerView.NO_POSITION && listener != null) {
-                    TaskItem item = (TaskItem) getItem(position);
-                    listener.onTaskDelete(item.task);
+                if (task != null && listener != null) {
+                    listener.onTaskDelete(task);
+                }
+            });
+
+            itemView.setOnClickListener(v -> {
+                if (task != null && listener != null) {
+                    listener.onTaskClick(task);
                 }
             });
+
+            itemView.setOnLongClickListener(v -> task != null && listener != null && listener.onTaskLongClick(task));
         }
 
         public void bind(Task task) {
+            this.task = task;
             nameText.setText(task.name);
+            bindDone(task);
+        }
+
+        // Only touches the views affected by the change
+        public void bindPartial(Task task, int flags) {
+            this.task = task;
+            if ((flags & PAYLOAD_NAME) != 0) {
+                nameText.setText(task.name);
+            }
+            if ((flags & PAYLOAD_DONE) != 0) {
+                bindDone(task);
+            }
+        }
+
+        // Checkbox and delete act on a single task, so they are off while selecting
+        public void bindSelection(boolean selecting, boolean selected) {
+            rootView.setActivated(selected);
+            checkBox.setEnabled(!selecting);
+            deleteButton.setVisibility(selecting ? View.INVISIBLE : View.VISIBLE);
+        }
+
+        private void bindDone(Task task) {
             checkBox.setChecked(task.isDone);
 
             if (task.isDone) {
@@ -158,26 +370,57 @@ public class TasksAdapter extends ListAdapter<TasksAdapter.Item, RecyclerView.Vi
         }
     }
 
-    static class DiffCallback extends DiffUtil.ItemCallback<Item> {
+    public static class ModelDiff extends DiffUtil.Callback {
+        private final TaskListModel mOld;
+        private final TaskListModel mNew;
+
+        public ModelDiff(TaskListModel oldList, TaskListModel newList) {
+            mOld = oldList;
+            mNew = newList;
+        }
+
+        @Override
+        public int getOldListSize() {
+            return mOld.size();
+        }
+
+        @Override
+        public int getNewListSize() {
+            return mNew.size();
+        }
+
+        @Override
+        public boolean areItemsTheSame(int oldPosition, int newPosition) {
+            return mOld.getType(oldPosition) == mNew.getType(newPosition)
+                    && mOld.getId(oldPosition) == mNew.getId(newPosition);
+        }
+
         @Override
-        public boolean areItemsTheSame(@NonNull Item oldItem, @NonNull Item newItem) {
-            if (oldItem.getType() != newItem.getType()) return false;
-            return oldItem.getId() == newItem.getId();
+        public boolean areContentsTheSame(int oldPosition, int newPosition) {
+            if (mOld.isHeader(oldPosition)) {
+                return mOld.getName(oldPosition).equals(mNew.getName(newPosition)) &&
+                        mOld.getOpenCount(oldPosition) == mNew.getOpenCount(newPosition) &&
+                        mOld.getDoneCount(oldPosition) == mNew.getDoneCount(newPosition) &&
+                        mOld.isExpanded(oldPosition) == mNew.isExpanded(newPosition);
+            }
+            return mOld.getName(oldPosition).equals(mNew.getName(newPosition)) &&
+                    mOld.isDone(oldPosition) == mNew.isDone(newPosition) &&
+                    mOld.getCategoryId(oldPosition) == mNew.getCategoryId(newPosition);
         }
 
+        @Nullable
         @Override
-        public boolean areContentsTheSame(@NonNull Item oldItem, @NonNull Item newItem) {
-            if (oldItem instanceof CategoryHeaderItem && newItem instanceof CategoryHeaderItem) {
-                return ((CategoryHeaderItem) oldItem).category.name.equals(((CategoryHeaderItem) newItem).category.name);
+        public Object getChangePayload(int oldPosition, int newPosition) {
+            if (mOld.isHeader(oldPosition)) {
+                return PAYLOAD_NAME;
             }
-            if (oldItem instanceof TaskItem && newItem instanceof TaskItem) {
-                Task t1 = ((TaskItem) oldItem).task;
-                Task t2 = ((TaskItem) newItem).task;
-                return t1.name.equals(t2.name) &&
-                        t1.isDone == t2.isDone &&
-                        t1.categoryId == t2.categoryId;
+            if (mOld.getCategoryId(oldPosition) != mNew.getCategoryId(newPosition)) {
+                return null; // Moved, rebind fully
             }
-            return false;
+            int flags = 0;
+            if (mOld.isDone(oldPosition) != mNew.isDone(newPosition)) flags |= PAYLOAD_DONE;
+            if (!mOld.getName(oldPosition).equals(mNew.getName(newPosition))) flags |= PAYLOAD_NAME;
+            return flags;
         }
     }
 }
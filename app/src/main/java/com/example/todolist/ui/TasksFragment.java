@@ -1,12 +1,22 @@
 package com.example.todolist.ui;
 
+import android.app.Activity;
 import android.app.AlertDialog;
+import android.app.DatePickerDialog;
+import android.app.TimePickerDialog;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.text.InputType;
+import android.text.format.DateFormat;
+import android.text.format.DateUtils;
 import android.view.LayoutInflater;
+import android.view.Menu;
+import android.view.MenuItem;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.ArrayAdapter;
+import android.widget.Button;
 import android.widget.EditText;
 import android.widget.LinearLayout;
 import android.widget.Spinner;
@@ -14,6 +24,9 @@ import android.widget.Toast;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.appcompat.view.ActionMode;
+import androidx.appcompat.widget.SearchView;
 import androidx.fragment.app.Fragment;
 import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.LinearLayoutManager;
@@ -22,21 +35,38 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.example.todolist.R;
 import com.example.todolist.data.Category;
 import com.example.todolist.data.Task;
+import com.example.todolist.metrics.PerformanceMonitor;
+import com.example.todolist.metrics.StartupMetrics;
 
 import java.util.ArrayList;
+import java.util.Calendar;
 import java.util.List;
 
 public class TasksFragment extends Fragment implements TasksAdapter.OnItemClickListener, OnAddActionListener {
 
+    private static final long SEARCH_DEBOUNCE_MS = 250;
+
+    // Same order as R.array.reminder_offsets
+    private static final long[] REMINDER_OFFSETS_MS = {
+            0, 15 * DateUtils.MINUTE_IN_MILLIS, DateUtils.HOUR_IN_MILLIS, DateUtils.DAY_IN_MILLIS };
+
     private MainViewModel mViewModel;
     private TasksAdapter mAdapter;
+    private TasksAdapter mSearchAdapter;
+    private RecyclerView mRecyclerView;
     private List<Category> mCategories = new ArrayList<>();
+    private final Handler mSearchHandler = new Handler(Looper.getMainLooper());
+    private String mPendingQuery = "";
+    private boolean mHasLiveItems = false;
+    private final Runnable mSearchRunnable = () -> mViewModel.search(mPendingQuery);
+    private ActionMode mSelectionMode;
 
     @Nullable
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container,
             @Nullable Bundle savedInstanceState) {
-        return inflater.inflate(R.layout.fragment_tasks, container, false);
+        return StartupMetrics.trace(StartupMetrics.SECTION_TASKS_INFLATE, () ->
+                inflater.inflate(R.layout.fragment_tasks, container, false));
     }
 
     @Override
@@ -47,19 +77,112 @@ public class TasksFragment extends Fragment implements TasksAdapter.OnItemClickL
 
         RecyclerView recyclerView = view.findViewById(R.id.recycler_view_tasks);
         recyclerView.setLayoutManager(new LinearLayoutManager(getContext()));
+        mRecyclerView = recyclerView;
+        PerformanceMonitor.trackList(recyclerView);
 
         mAdapter = new TasksAdapter(this);
-        recyclerView.setAdapter(mAdapter);
+        mSearchAdapter = new TasksAdapter(this);
 
         // Keep track of categories for the "Add Task" dialog spinner
         mViewModel.getAllCategories().observe(getViewLifecycleOwner(), categories -> {
             mCategories = categories;
         });
 
-        // Observe the combined list (Headers + Items)
-        mViewModel.getCombinedItems().observe(getViewLifecycleOwner(), items -> {
+        // Last session's list, drawn while the database opens
+        mViewModel.getSnapshotItems().observe(getViewLifecycleOwner(), items -> {
+            if (mHasLiveItems || items.isEmpty()) {
+                return;
+            }
             mAdapter.submitList(items);
         });
+
+        // Combined list (Headers + Items); collapsed categories are a header row only
+        mViewModel.getCombinedItems().observe(getViewLifecycleOwner(), items -> {
+            mHasLiveItems = true;
+            PerformanceMonitor.setListSize(recyclerView, items.size());
+            mAdapter.submitList(items, this::onLiveItemsShown);
+        });
+        recyclerView.setAdapter(mAdapter);
+
+        mViewModel.getWriteError().observe(getViewLifecycleOwner(), message -> {
+            if (message != null) {
+                Toast.makeText(requireContext(), message, Toast.LENGTH_LONG).show();
+                mViewModel.onWriteErrorShown();
+            }
+        });
+
+        // Search results replace the list while a query is entered
+        mViewModel.getSearchResults().observe(getViewLifecycleOwner(), items -> {
+            mSearchAdapter.submitList(items);
+        });
+
+        SearchView searchView = view.findViewById(R.id.search_tasks);
+        searchView.setOnQueryTextListener(new SearchView.OnQueryTextListener() {
+            @Override
+            public boolean onQueryTextSubmit(String query) {
+                onSearchQueryChanged(query, 0);
+                return true;
+            }
+
+            @Override
+            public boolean onQueryTextChange(String newText) {
+                onSearchQueryChanged(newText, SEARCH_DEBOUNCE_MS);
+                return true;
+            }
+        });
+    }
+
+    // First live list on screen ends the startup measurement
+    private void onLiveItemsShown() {
+        Activity activity = getActivity();
+        if (activity != null) {
+            StartupMetrics.reportFullyDrawn(activity);
+        }
+    }
+
+    @Override
+    public void onResume() {
+        super.onResume();
+        PerformanceMonitor.setFragment(requireView(), "Tasks");
+    }
+
+    @Override
+    public void onStop() {
+        super.onStop();
+        if (!mHasLiveItems) {
+            return;
+        }
+        mViewModel.saveSnapshot(mAdapter.getCurrentList());
+    }
+
+    @Override
+    public void onDestroyView() {
+        if (mSelectionMode != null) {
+            mSelectionMode.finish();
+        }
+        super.onDestroyView();
+        mHasLiveItems = false;
+        mSearchHandler.removeCallbacks(mSearchRunnable);
+        mRecyclerView = null;
+    }
+
+    private void onSearchQueryChanged(String text, long delayMs) {
+        mPendingQuery = text == null ? "" : text.trim();
+        mSearchHandler.removeCallbacks(mSearchRunnable);
+        if (mPendingQuery.isEmpty()) {
+            mViewModel.search("");
+            if (mRecyclerView.getAdapter() != mAdapter) {
+                mRecyclerView.setAdapter(mAdapter);
+            }
+            return;
+        }
+        if (mRecyclerView.getAdapter() != mSearchAdapter) {
+            if (mSelectionMode != null) {
+                mSelectionMode.finish(); // Selection lives in the grouped list only
+            }
+            mRecyclerView.setAdapter(mSearchAdapter);
+        }
+        mSearchHandler.postDelayed(mSearchRunnable, delayMs);
     }
 
     @Override
@@ -80,13 +203,15 @@ public class TasksFragment extends Fragment implements TasksAdapter.OnItemClickL
 
     @Override
     public void onCheckChanged(Task task, boolean isChecked) {
-        task.isDone = isChecked;
+        // Work on a copy so the adapter can diff the old state against the new one
+        Task updated = task.copy();
+        updated.isDone = isChecked;
         if (isChecked) {
-            task.timestampDone = System.currentTimeMillis();
+            updated.timestampDone = System.currentTimeMillis();
         } else {
-            task.timestampDone = 0;
+            updated.timestampDone = 0;
         }
-        mViewModel.update(task);
+        mViewModel.update(updated);
     }
 
     @Override
@@ -130,6 +255,112 @@ public class TasksFragment extends Fragment implements TasksAdapter.OnItemClickL
         builder.show();
     }
 
+    @Override
+    public void onCategoryExpandToggle(Category category, boolean expand) {
+        mViewModel.setCategoryExpanded(category.id, expand);
+    }
+
+    // --- Multi-selection, grouped list only ---
+
+    @Override
+    public boolean onTaskLongClick(Task task) {
+        if (mRecyclerView == null || mRecyclerView.getAdapter() != mAdapter || mAdapter.isSelecting()) {
+            return false;
+        }
+        mSelectionMode = ((AppCompatActivity) requireActivity()).startSupportActionMode(mSelectionCallback);
+        mAdapter.startSelection();
+        mAdapter.toggleSelection(task.id);
+        return true;
+    }
+
+    @Override
+    public void onTaskClick(Task task) {
+        if (mAdapter.isSelecting()) {
+            mAdapter.toggleSelection(task.id);
+        }
+    }
+
+    @Override
+    public void onSelectionChanged(int selectedCount) {
+        if (mSelectionMode == null) {
+            return;
+        }
+        if (selectedCount == 0) {
+            mSelectionMode.finish();
+        } else {
+            mSelectionMode.setTitle(getResources().getQuantityString(R.plurals.tasks_selected, selectedCount, selectedCount));
+        }
+    }
+
+    private final ActionMode.Callback mSelectionCallback = new ActionMode.Callback() {
+        @Override
+        public boolean onCreateActionMode(ActionMode mode, Menu menu) {
+            mode.getMenuInflater().inflate(R.menu.menu_task_selection, menu);
+            return true;
+        }
+
+        @Override
+        public boolean onPrepareActionMode(ActionMode mode, Menu menu) {
+            return false;
+        }
+
+        @Override
+        public boolean onActionItemClicked(ActionMode mode, MenuItem item) {
+            List<Task> selected = mAdapter.getSelectedTasks();
+            int id = item.getItemId();
+            if (id == R.id.action_complete_selected) {
+                mViewModel.setTasksDone(selected, true);
+            } else if (id == R.id.action_uncomplete_selected) {
+                mViewModel.setTasksDone(selected, false);
+            } else if (id == R.id.action_move_selected) {
+                showMoveTasksDialog(selected, mode);
+                return true;
+            } else if (id == R.id.action_delete_selected) {
+                showDeleteTasksDialog(selected, mode);
+                return true;
+            } else {
+                return false;
+            }
+            mode.finish();
+            return true;
+        }
+
+        @Override
+        public void onDestroyActionMode(ActionMode mode) {
+            mAdapter.endSelection();
+            mSelectionMode = null;
+        }
+    };
+
+    // One confirmation for the whole selection
+    private void showDeleteTasksDialog(List<Task> tasks, ActionMode mode) {
+        new AlertDialog.Builder(getContext())
+                .setTitle("Delete Tasks")
+                .setMessage(getResources().getQuantityString(R.plurals.dialog_delete_tasks_message, tasks.size(), tasks.size()))
+                .setPositiveButton("Delete", (dialog, which) -> {
+                    mViewModel.deleteTasks(tasks);
+                    mode.finish();
+                })
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    private void showMoveTasksDialog(List<Task> tasks, ActionMode mode) {
+        List<Category> categories = new ArrayList<>(mCategories);
+        String[] names = new String[categories.size()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = categories.get(i).name;
+        }
+        new AlertDialog.Builder(getContext())
+                .setTitle(R.string.dialog_move_tasks_title)
+                .setItems(names, (dialog, which) -> {
+                    mViewModel.moveTasks(tasks, categories.get(which));
+                    mode.finish();
+                })
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
     private void showAddTaskDialog() {
         if (mCategories.isEmpty()) {
             new AlertDialog.Builder(getContext())
@@ -161,6 +392,27 @@ public class TasksFragment extends Fragment implements TasksAdapter.OnItemClickL
         categorySpinner.setAdapter(adapter);
         layout.addView(categorySpinner);
 
+        // Optional due date; the reminder offset only applies once one is picked
+        final Spinner reminderSpinner = new Spinner(getContext());
+        ArrayAdapter<CharSequence> reminders = ArrayAdapter.createFromResource(requireContext(),
+                R.array.reminder_offsets, android.R.layout.simple_spinner_item);
+        reminders.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
+        reminderSpinner.setAdapter(reminders);
+        reminderSpinner.setEnabled(false);
+
+        final Calendar due = Calendar.getInstance();
+        final boolean[] hasDue = { false };
+        final Button dueButton = new Button(getContext());
+        dueButton.setText(R.string.action_set_due);
+        dueButton.setOnClickListener(v -> pickDueDate(due, () -> {
+            hasDue[0] = true;
+            dueButton.setText(DateUtils.formatDateTime(getContext(), due.getTimeInMillis(),
+                    DateUtils.FORMAT_SHOW_DATE | DateUtils.FORMAT_SHOW_TIME));
+            reminderSpinner.setEnabled(true);
+        }));
+        layout.addView(dueButton);
+        layout.addView(reminderSpinner);
+
         builder.setView(layout);
 
         builder.setPositiveButton(R.string.action_save, (dialog, which) -> {
@@ -170,6 +422,10 @@ public class TasksFragment extends Fragment implements TasksAdapter.OnItemClickL
                 if (selectedIndex >= 0 && selectedIndex < mCategories.size()) {
                     Category selectedCat = mCategories.get(selectedIndex);
                     Task newTask = new Task(taskName, selectedCat.id, System.currentTimeMillis());
+                    if (hasDue[0]) {
+                        newTask.setDue(due.getTimeInMillis(),
+                                REMINDER_OFFSETS_MS[reminderSpinner.getSelectedItemPosition()]);
+                    }
                     mViewModel.insert(newTask);
                 }
             }
@@ -179,6 +435,21 @@ public class TasksFragment extends Fragment implements TasksAdapter.OnItemClickL
         builder.show();
     }
 
+    // Date, then time of day; `onPicked` runs once both are set
+    private void pickDueDate(Calendar due, Runnable onPicked) {
+        new DatePickerDialog(requireContext(), (dateView, year, month, day) -> {
+            due.set(year, month, day);
+            new TimePickerDialog(requireContext(), (timeView, hour, minute) -> {
+                due.set(Calendar.HOUR_OF_DAY, hour);
+                due.set(Calendar.MINUTE, minute);
+                due.set(Calendar.SECOND, 0);
+                due.set(Calendar.MILLISECOND, 0);
+                onPicked.run();
+            }, due.get(Calendar.HOUR_OF_DAY), due.get(Calendar.MINUTE),
+                    DateFormat.is24HourFormat(requireContext())).show();
+        }, due.get(Calendar.YEAR), due.get(Calendar.MONTH), due.get(Calendar.DAY_OF_MONTH)).show();
+    }
+
     private void showAddCategoryDialog() {
         AlertDialog.Builder builder = new AlertDialog.Builder(getContext());
         builder.setTitle(R.string.dialog_add_category_title);
@@ -0,0 +1,59 @@
+package com.example.todolist.benchmark;
+
+import com.example.todolist.data.Category;
+import com.example.todolist.data.Task;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+
+// Deterministic fixtures shared by the benchmarks
+final class BenchmarkData {
+    static final int CATEGORY_COUNT = 200;
+
+    private BenchmarkData() {
+    }
+
+    static Collection<Object[]> taskCounts() {
+        return Arrays.asList(new Object[][]{{1_000}, {10_000}, {100_000}});
+    }
+
+    static List<Category> categories() {
+        List<Category> categories = new ArrayList<>(CATEGORY_COUNT);
+        for (int i = 1; i <= CATEGORY_COUNT; i++) {
+            Category category = new Category("Category " + i);
+            category.id = i;
+            categories.add(category);
+        }
+        return categories;
+    }
+
+    // Ids are left at 0 so the list can be inserted; assignIds() fills them for in-memory use
+    static List<Task> tasks(int count) {
+        Random random = new Random(42);
+        long now = System.currentTimeMillis();
+        List<Task> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Task task = new Task("Task " + i, 1 + random.nextInt(CATEGORY_COUNT), now - i * 1000L);
+            if (random.nextInt(4) == 0) {
+                task.isDone = true;
+                task.timestampDone = now - random.nextInt(48 * 60 * 60 * 1000);
+            }
+            tasks.add(task);
+        }
+        // Same order as TaskDao.getAllTasks
+        tasks.sort((a, b) -> a.isDone != b.isDone
+                ? (a.isDone ? 1 : -1)
+                : Long.compare(b.timestampCreated, a.timestampCreated));
+        return tasks;
+    }
+
+    static List<Task> assignIds(List<Task> tasks) {
+        for (int i = 0; i < tasks.size(); i++) {
+            tasks.get(i).id = i + 1;
+        }
+        return tasks;
+    }
+}
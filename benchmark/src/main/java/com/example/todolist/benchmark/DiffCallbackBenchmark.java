@@ -0,0 +1,70 @@
+package com.example.todolist.benchmark;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.lifecycle.MutableLiveData;
+import androidx.recyclerview.widget.DiffUtil;
+
+import com.example.todolist.data.Category;
+import com.example.todolist.data.Task;
+import com.example.todolist.ui.TaskGroupingEngine;
+import com.example.todolist.ui.TaskListModel;
+import com.example.todolist.ui.TasksAdapter;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+@RunWith(Parameterized.class)
+public class DiffCallbackBenchmark {
+
+    @Parameterized.Parameters(name = "tasks={0}")
+    public static Collection<Object[]> parameters() {
+        return BenchmarkData.taskCounts();
+    }
+
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    private final int mTaskCount;
+    private TaskListModel mOldItems;
+    private TaskListModel mNewItems;
+
+    public DiffCallbackBenchmark(int taskCount) {
+        mTaskCount = taskCount;
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        List<Category> categories = BenchmarkData.categories();
+        List<Task> tasks = BenchmarkData.assignIds(BenchmarkData.tasks(mTaskCount));
+
+        // Same list with one task checked off, as after a checkbox tap
+        List<Task> toggledTasks = new ArrayList<>(tasks);
+        Task old = toggledTasks.get(0);
+        Task toggled = old.copy();
+        toggled.isDone = !old.isDone;
+        toggledTasks.set(0, toggled);
+
+        TaskGroupingEngine engine = new TaskGroupingEngine(new MutableLiveData<>());
+        mOldItems = engine.regroupBlocking(categories, tasks);
+        mNewItems = engine.regroupBlocking(categories, toggledTasks);
+        engine.shutdown();
+    }
+
+    // The positional callback TasksAdapter runs on its diff thread
+    @Test
+    public void diffSingleToggle() {
+        TasksAdapter.ModelDiff callback = new TasksAdapter.ModelDiff(mOldItems, mNewItems);
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            DiffUtil.calculateDiff(callback);
+        }
+    }
+}
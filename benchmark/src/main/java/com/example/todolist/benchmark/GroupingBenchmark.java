@@ -0,0 +1,60 @@
+package com.example.todolist.benchmark;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.lifecycle.MutableLiveData;
+
+import com.example.todolist.data.Category;
+import com.example.todolist.data.Task;
+import com.example.todolist.ui.TaskGroupingEngine;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.Collection;
+import java.util.List;
+
+@RunWith(Parameterized.class)
+public class GroupingBenchmark {
+
+    @Parameterized.Parameters(name = "tasks={0}")
+    public static Collection<Object[]> parameters() {
+        return BenchmarkData.taskCounts();
+    }
+
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    private final int mTaskCount;
+    private List<Category> mCategories;
+    private List<Task> mTasks;
+    private TaskGroupingEngine mEngine;
+
+    public GroupingBenchmark(int taskCount) {
+        mTaskCount = taskCount;
+    }
+
+    @Before
+    public void setUp() {
+        mCategories = BenchmarkData.categories();
+        mTasks = BenchmarkData.assignIds(BenchmarkData.tasks(mTaskCount));
+        mEngine = new TaskGroupingEngine(new MutableLiveData<>());
+    }
+
+    @After
+    public void tearDown() {
+        mEngine.shutdown();
+    }
+
+    @Test
+    public void regroupAll() throws Exception {
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            mEngine.regroupBlocking(mCategories, mTasks);
+        }
+    }
+}
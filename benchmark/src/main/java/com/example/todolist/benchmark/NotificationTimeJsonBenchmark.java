@@ -0,0 +1,61 @@
+package com.example.todolist.benchmark;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+
+import com.example.todolist.data.NotificationTime;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+// Parsing of the legacy SharedPreferences JSON imported by AlarmStore.
+// Slots are unique per minute of the day, so 1440 is the largest possible list.
+@RunWith(Parameterized.class)
+public class NotificationTimeJsonBenchmark {
+
+    @Parameterized.Parameters(name = "slots={0}")
+    public static Collection<Object[]> parameters() {
+        return Arrays.asList(new Object[][]{{3}, {48}, {1440}});
+    }
+
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    private final int mSlotCount;
+    private String mJson;
+
+    public NotificationTimeJsonBenchmark(int slotCount) {
+        mSlotCount = slotCount;
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        JSONArray array = new JSONArray();
+        int step = 1440 / mSlotCount;
+        for (int i = 0; i < mSlotCount; i++) {
+            int minuteOfDay = i * step;
+            JSONObject obj = new JSONObject();
+            obj.put("hour", minuteOfDay / 60);
+            obj.put("minute", minuteOfDay % 60);
+            obj.put("isEnabled", i % 2 == 0);
+            array.put(obj);
+        }
+        mJson = array.toString();
+    }
+
+    @Test
+    public void parse() throws Exception {
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            NotificationTime.fromJson(mJson);
+        }
+    }
+}
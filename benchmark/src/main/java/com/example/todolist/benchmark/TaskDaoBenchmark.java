@@ -0,0 +1,121 @@
+package com.example.todolist.benchmark;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.room.Room;
+import androidx.sqlite.db.SimpleSQLiteQuery;
+import androidx.test.core.app.ApplicationProvider;
+
+import com.example.todolist.data.AppDatabase;
+import com.example.todolist.data.Category;
+import com.example.todolist.data.TaskDao;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+@RunWith(Parameterized.class)
+public class TaskDaoBenchmark {
+
+    // Mirrors TaskDao.getAllTasks, which only exists as LiveData
+    private static final SimpleSQLiteQuery ALL_TASKS =
+            new SimpleSQLiteQuery("SELECT * FROM tasks ORDER BY isDone ASC, timestampCreated DESC");
+
+    // Mirrors TaskRepository.BULK_CHUNK_SIZE
+    private static final int BULK_CHUNK_SIZE = 900;
+
+    @Parameterized.Parameters(name = "tasks={0}")
+    public static Collection<Object[]> parameters() {
+        return BenchmarkData.taskCounts();
+    }
+
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    private final int mTaskCount;
+    private AppDatabase mDatabase;
+    private TaskDao mTaskDao;
+    private final List<Integer> mTaskIds = new ArrayList<>();
+
+    public TaskDaoBenchmark(int taskCount) {
+        mTaskCount = taskCount;
+    }
+
+    @Before
+    public void setUp() {
+        Context context = ApplicationProvider.getApplicationContext();
+        mDatabase = Room.inMemoryDatabaseBuilder(context, AppDatabase.class).build();
+        mTaskDao = mDatabase.taskDao();
+        mDatabase.runInTransaction(() -> {
+            for (Category category : BenchmarkData.categories()) {
+                category.id = 0;
+                mDatabase.categoryDao().insert(category);
+            }
+            for (long id : mTaskDao.insertAll(BenchmarkData.tasks(mTaskCount))) {
+                mTaskIds.add((int) id);
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        mDatabase.close();
+    }
+
+    @Test
+    public void countTasks() {
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            mTaskDao.getTaskCount();
+        }
+    }
+
+    @Test
+    public void tasksByCategory() {
+        BenchmarkState state = benchmarkRule.getState();
+        int categoryId = 1;
+        while (state.keepRunning()) {
+            mTaskDao.getTasksByCategorySync(categoryId);
+            categoryId = categoryId % BenchmarkData.CATEGORY_COUNT + 1;
+        }
+    }
+
+    // Every task completed, then reopened, as the multi-selection does it: one
+    // transaction with one UPDATE per chunk of ids
+    @Test
+    public void bulkSetDone() {
+        BenchmarkState state = benchmarkRule.getState();
+        boolean done = true;
+        while (state.keepRunning()) {
+            boolean value = done;
+            mDatabase.runInTransaction(() -> {
+                for (int i = 0; i < mTaskIds.size(); i += BULK_CHUNK_SIZE) {
+                    mTaskDao.setDone(mTaskIds.subList(i, Math.min(i + BULK_CHUNK_SIZE, mTaskIds.size())), value, value ? 1L : 0L);
+                }
+            });
+            done = !done;
+        }
+    }
+
+    @Test
+    public void allTasksOrdered() {
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            try (Cursor cursor = mDatabase.query(ALL_TASKS)) {
+                while (cursor.moveToNext()) {
+                    cursor.getInt(0);
+                }
+            }
+        }
+    }
+}
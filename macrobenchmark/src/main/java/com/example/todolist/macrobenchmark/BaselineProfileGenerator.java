@@ -0,0 +1,39 @@
+package com.example.todolist.macrobenchmark;
+
+import androidx.benchmark.macro.junit4.BaselineProfileRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import kotlin.Unit;
+
+/**
+ * Records the classes and methods used on the startup -> list render -> task toggle
+ * path. Run with ./gradlew :app:generateBaselineProfile; the output is copied to
+ * app/src/release/generated/baselineProfiles and packaged with the APK.
+ */
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class BaselineProfileGenerator {
+    private static final int MAX_ITERATIONS = 15;
+    private static final int STABLE_ITERATIONS = 3;
+
+    @Rule
+    public BaselineProfileRule baselineProfileRule = new BaselineProfileRule();
+
+    @Test
+    public void generate() {
+        // Also emitted as a startup profile, which the app build uses for dex layout
+        baselineProfileRule.collect(TaskJourney.PACKAGE_NAME, MAX_ITERATIONS, STABLE_ITERATIONS,
+                null, true, false, rule -> true,
+                scope -> {
+                    scope.pressHome();
+                    TaskJourney.startAndRenderList(scope);
+                    TaskJourney.toggleFirstTask(scope);
+                    return Unit.INSTANCE;
+                });
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.todolist.macrobenchmark;
+
+import androidx.benchmark.macro.CompilationMode;
+import androidx.benchmark.macro.Metric;
+import androidx.benchmark.macro.StartupMode;
+import androidx.benchmark.macro.StartupTimingMetric;
+import androidx.benchmark.macro.TraceSectionMetric;
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.List;
+
+import kotlin.Unit;
+
+/**
+ * Cold start of the benchmark build. StartupTimingMetric reports timeToInitialDisplay
+ * (first frame) and timeToFullDisplay (the app's reportFullyDrawn once the live task
+ * list is shown); the trace sections split the time by phase. The compilation mode
+ * variants show what the baseline profile saves over JIT and full AOT.
+ */
+@RunWith(AndroidJUnit4.class)
+public class StartupBenchmark {
+    private static final int ITERATIONS = 10;
+
+    @Rule
+    public MacrobenchmarkRule benchmarkRule = new MacrobenchmarkRule();
+
+    @Test
+    public void coldStartup() {
+        startup(CompilationMode.DEFAULT);
+    }
+
+    @Test
+    public void coldStartupNoCompilation() {
+        startup(new CompilationMode.None());
+    }
+
+    @Test
+    public void coldStartupBaselineProfile() {
+        startup(new CompilationMode.Partial());
+    }
+
+    @Test
+    public void coldStartupFullAot() {
+        startup(new CompilationMode.Full());
+    }
+
+    private void startup(CompilationMode compilationMode) {
+        List<Metric> metrics = Arrays.asList(
+                new StartupTimingMetric(),
+                new TraceSectionMetric("AppDatabase.getDatabase"),
+                new TraceSectionMetric("AppDatabase.open"),
+                new TraceSectionMetric("AppDatabase.seed"),
+                new TraceSectionMetric("AlarmStore.load"),
+                new TraceSectionMetric("TasksFragment.inflate"));
+
+        benchmarkRule.measureRepeated(TaskJourney.PACKAGE_NAME, metrics, compilationMode, StartupMode.COLD, ITERATIONS,
+                scope -> {
+                    scope.pressHome();
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    // timeToFullDisplay is only reported when the list actually appears
+                    TaskJourney.startAndRenderList(scope);
+                    return Unit.INSTANCE;
+                });
+    }
+}
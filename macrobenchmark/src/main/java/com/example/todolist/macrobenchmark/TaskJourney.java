@@ -0,0 +1,71 @@
+package com.example.todolist.macrobenchmark;
+
+import androidx.benchmark.macro.MacrobenchmarkScope;
+import androidx.test.uiautomator.By;
+import androidx.test.uiautomator.BySelector;
+import androidx.test.uiautomator.UiDevice;
+import androidx.test.uiautomator.UiObject2;
+import androidx.test.uiautomator.Until;
+
+import java.util.regex.Pattern;
+
+// Startup -> list render -> task toggle, shared by profile generation and benchmarks
+final class TaskJourney {
+    static final String PACKAGE_NAME = "com.example.todolist";
+    private static final long TIMEOUT_MS = 5_000;
+
+    private static final BySelector LIST = By.res(PACKAGE_NAME, "recycler_view_tasks");
+    private static final BySelector CHECKBOX = By.res(PACKAGE_NAME, "checkBox_done");
+    private static final BySelector HEADER = By.res(PACKAGE_NAME, "text_header_name");
+
+    private TaskJourney() {
+    }
+
+    static void startAndRenderList(MacrobenchmarkScope scope) {
+        scope.startActivityAndWait();
+        UiDevice device = scope.getDevice();
+        if (!device.wait(Until.hasObject(LIST), TIMEOUT_MS)) {
+            throw new AssertionError("Task list not shown");
+        }
+    }
+
+    // Toggles the first task twice so every iteration starts from the same state
+    static void toggleFirstTask(MacrobenchmarkScope scope) {
+        UiDevice device = scope.getDevice();
+        if (!device.wait(Until.hasObject(CHECKBOX), TIMEOUT_MS)) {
+            // Categories start collapsed
+            expandFirstCategory(device);
+        }
+        if (!device.hasObject(CHECKBOX)) {
+            addTask(device);
+        }
+        for (int i = 0; i < 2; i++) {
+            UiObject2 checkBox = device.wait(Until.findObject(CHECKBOX), TIMEOUT_MS);
+            checkBox.click();
+            device.waitForIdle();
+        }
+    }
+
+    // A fresh install only has the seeded categories
+    private static void addTask(UiDevice device) {
+        device.findObject(By.res(PACKAGE_NAME, "navigation_add")).click();
+        device.wait(Until.findObject(By.text("Add Task")), TIMEOUT_MS).click();
+        device.wait(Until.findObject(By.clazz("android.widget.EditText")), TIMEOUT_MS).setText("Profile task");
+        device.findObject(By.text(Pattern.compile("Save", Pattern.CASE_INSENSITIVE))).click();
+        if (!device.wait(Until.hasObject(CHECKBOX), TIMEOUT_MS)) {
+            expandFirstCategory(device);
+        }
+        if (!device.hasObject(CHECKBOX)) {
+            throw new AssertionError("Added task not shown");
+        }
+    }
+
+    // Only called while no task row is visible, so the first header is collapsed
+    private static void expandFirstCategory(UiDevice device) {
+        UiObject2 header = device.findObject(HEADER);
+        if (header != null) {
+            header.click();
+            device.wait(Until.hasObject(CHECKBOX), TIMEOUT_MS);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.todolist.macrobenchmark;
+
+import androidx.benchmark.macro.CompilationMode;
+import androidx.benchmark.macro.FrameTimingMetric;
+import androidx.benchmark.macro.StartupMode;
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+
+import kotlin.Unit;
+
+// Frame timings of the task toggle with and without the baseline profile
+@RunWith(AndroidJUnit4.class)
+public class TaskToggleBenchmark {
+    private static final int ITERATIONS = 10;
+
+    @Rule
+    public MacrobenchmarkRule benchmarkRule = new MacrobenchmarkRule();
+
+    @Test
+    public void toggleNoCompilation() {
+        toggle(new CompilationMode.None());
+    }
+
+    @Test
+    public void toggleBaselineProfile() {
+        toggle(new CompilationMode.Partial());
+    }
+
+    private void toggle(CompilationMode compilationMode) {
+        benchmarkRule.measureRepeated(TaskJourney.PACKAGE_NAME,
+                Collections.singletonList(new FrameTimingMetric()), compilationMode, StartupMode.COLD, ITERATIONS,
+                scope -> {
+                    scope.pressHome();
+                    TaskJourney.startAndRenderList(scope);
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    TaskJourney.toggleFirstTask(scope);
+                    return Unit.INSTANCE;
+                });
+    }
+}